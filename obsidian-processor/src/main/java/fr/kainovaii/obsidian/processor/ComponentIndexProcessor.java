@@ -0,0 +1,218 @@
+package fr.kainovaii.obsidian.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Compile-time component index for Obsidian applications.
+ * Records every class carrying a framework annotation or extending a class (or implementing an interface)
+ * that carries one, and every Migration subclass, in {@value #INDEX_RESOURCE}. At startup the framework reads
+ * this file instead of scanning the classpath root it was compiled into.
+ *
+ * Index format, one entry per line:
+ * <pre>
+ * &#64;annotation.Type                  (key declared, possibly without entries)
+ * &#64;annotation.Type com.app.SomeClass
+ * +parent.Type com.app.SubClass
+ * </pre>
+ */
+@SupportedAnnotationTypes("*")
+public class ComponentIndexProcessor extends AbstractProcessor
+{
+    /** Index location in the class output */
+    public static final String INDEX_RESOURCE = "META-INF/obsidian/components.idx";
+
+    /** Indexed annotations */
+    private static final List<String> ANNOTATIONS = List.of(
+            "fr.kainovaii.obsidian.http.controller.annotations.Controller",
+            "fr.kainovaii.obsidian.http.controller.annotations.GlobalAdvice",
+            "fr.kainovaii.obsidian.di.annotations.Service",
+            "fr.kainovaii.obsidian.di.annotations.Repository",
+            "fr.kainovaii.obsidian.config.annotations.Config",
+            "fr.kainovaii.obsidian.database.seeder.annotations.Seeder",
+            "fr.kainovaii.obsidian.livecomponents.annotations.LiveComponentImpl",
+            "fr.kainovaii.obsidian.routing.methods.WebSocket",
+            "fr.kainovaii.obsidian.cli.annotations.Command",
+            "fr.kainovaii.obsidian.security.user.UserDetailsServiceImpl"
+    );
+
+    /** Indexed parent types */
+    private static final List<String> PARENT_TYPES = List.of(
+            "fr.kainovaii.obsidian.database.Migration"
+    );
+
+    /** Index entries by key, merged with the previous index on incremental builds */
+    private final TreeMap<String, TreeSet<String>> index = new TreeMap<>();
+
+    /** Whether the previous index has been read */
+    private boolean initialized;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv)
+    {
+        if (!initialized) {
+            initialized = true;
+            for (String annotation : ANNOTATIONS) index.put("@" + annotation, new TreeSet<>());
+            for (String parent : PARENT_TYPES) index.put("+" + parent, new TreeSet<>());
+            readPreviousIndex();
+        }
+
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement type) {
+                visit(type);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indexes a type and its nested types.
+     * Previous entries of the type are dropped first, so removed annotations disappear on recompilation.
+     *
+     * @param type Type being compiled
+     */
+    private void visit(TypeElement type)
+    {
+        String name = processingEnv.getElementUtils().getBinaryName(type).toString();
+        index.values().forEach(classes -> classes.remove(name));
+
+        if (type.getKind() == ElementKind.CLASS || type.getKind() == ElementKind.INTERFACE) {
+            record(type, name);
+
+            for (TypeElement parent : superTypes(type)) {
+                TreeSet<String> classes = index.get("+" + parent.getQualifiedName());
+                if (classes != null) classes.add(name);
+                record(parent, name);
+            }
+        }
+
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed instanceof TypeElement nested) {
+                visit(nested);
+            }
+        }
+    }
+
+    /**
+     * Indexes a class under the indexed annotations carried by a type: the class itself, or one of its parents,
+     * since a parent's annotation applies to its subtypes as in a classpath scan.
+     *
+     * @param annotated Type whose annotations are read
+     * @param name Binary name of the class to index
+     */
+    private void record(TypeElement annotated, String name)
+    {
+        for (AnnotationMirror mirror : annotated.getAnnotationMirrors()) {
+            String annotation = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+            TreeSet<String> classes = index.get("@" + annotation);
+            if (classes != null) classes.add(name);
+        }
+    }
+
+    /**
+     * Collects all superclasses and interfaces of a type.
+     *
+     * @param type Type
+     * @return Parent types
+     */
+    private Set<TypeElement> superTypes(TypeElement type)
+    {
+        Set<TypeElement> parents = new LinkedHashSet<>();
+        collectSuperTypes(type.asType(), parents);
+        return parents;
+    }
+
+    /**
+     * Walks the type hierarchy.
+     *
+     * @param type Current type
+     * @param parents Accumulated parent types
+     */
+    private void collectSuperTypes(TypeMirror type, Set<TypeElement> parents)
+    {
+        for (TypeMirror parent : processingEnv.getTypeUtils().directSupertypes(type)) {
+            if (parent.getKind() != TypeKind.DECLARED) continue;
+            TypeElement element = (TypeElement) ((DeclaredType) parent).asElement();
+            if (parents.add(element)) {
+                collectSuperTypes(parent, parents);
+            }
+        }
+    }
+
+    /**
+     * Reads the index left by a previous compilation, if any.
+     */
+    private void readPreviousIndex()
+    {
+        try {
+            FileObject previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+            try (Reader reader = previous.openReader(true); BufferedReader lines = new BufferedReader(reader)) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    line = line.trim();
+                    int space = line.indexOf(' ');
+                    if (line.isEmpty() || line.startsWith("#") || space < 0) continue;
+                    TreeSet<String> classes = index.get(line.substring(0, space));
+                    if (classes != null) classes.add(line.substring(space + 1).trim());
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // No previous index: full build
+        }
+    }
+
+    /**
+     * Writes the index to the class output.
+     */
+    private void writeIndex()
+    {
+        Filer filer = processingEnv.getFiler();
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+            try (Writer writer = file.openWriter()) {
+                writer.write("# Obsidian component index, generated at compile time\n");
+                for (var entry : index.entrySet()) {
+                    writer.write(entry.getKey() + "\n");
+                    for (String name : entry.getValue()) {
+                        writer.write(entry.getKey() + " " + name + "\n");
+                    }
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Cannot write Obsidian component index: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+#!/bin/sh
+# Compares HTTP/1.1 and cleartext HTTP/2 (h2c) on pages made of many LiveComponent and asset requests.
+#
+# Usage: scripts/benchmark-h2c.sh [browsers] [pages per browser] [components per page] [assets per page] [component latency ms]
+#   browsers                  concurrent simulated browsers, default 20
+#   pages per browser         pages each browser loads in turn, default 10
+#   components per page       component actions (POST /obsidian/components) per page, default 30
+#   assets per page           fingerprinted assets per page, default 20
+#   component latency ms      time the stand-in component route waits, default 20
+#
+# HTTP/1.1 browsers keep at most 6 requests in flight; h2c browsers multiplex every request of a page.
+# Each protocol runs in its own JVM and logs one line: pages/s, p50, p99, max page load time and errors.
+set -e
+cd "$(dirname "$0")/.."
+
+mvn -B -q test-compile dependency:build-classpath -Dmdep.outputFile=target/benchmark.classpath
+CP="target/classes:target/test-classes:$(cat target/benchmark.classpath)"
+
+for protocol in http1 h2c; do
+    java -cp "$CP" fr.kainovaii.obsidian.http.server.H2cBenchmark "$protocol" "${1:-20}" "${2:-10}" "${3:-30}" "${4:-20}" "${5:-20}"
+done
@@ -51,19 +51,31 @@ public class Cli
     {
         if (args == null || args.length == 0) return;
 
-        Cli cli = new Cli();
-
         switch (args[0]) {
-            case "--help", "-h" -> { cli.printHelp(); System.exit(0); }
+            case "--help", "-h" -> { new Cli().printHelp(); System.exit(0); }
             case "--version", "-v" -> { System.out.println("Obsidian " + VERSION); System.exit(0); }
         }
 
+        if (!isCommandName(args[0])) return; // flags or key=value → let server start without discovery
+
+        Cli cli = new Cli();
+
         if (!cli.registry.containsKey(args[0])) return; // not a CLI command → let server start
 
         cli.execute(args);
         System.exit(0);
     }
 
+    /**
+     * Checks whether an argument can name a command, so discovery is skipped for server options.
+     *
+     * @param arg First argument
+     * @return false for flags ("-x", "--x") and assignments ("key=value")
+     */
+    private static boolean isCommandName(String arg) {
+        return !arg.isEmpty() && !arg.startsWith("-") && arg.indexOf('=') < 0;
+    }
+
     private void execute(String[] args)
     {
         String name      = args[0];
@@ -1,25 +1,39 @@
 package fr.kainovaii.obsidian.cli;
 
 import fr.kainovaii.obsidian.cli.annotations.Command;
+import fr.kainovaii.obsidian.core.ClasspathIndex;
 
 import java.io.*;
 import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.jar.*;
 
 /**
- * Scans the classpath for classes annotated with {@link Command}.
- * Supports compiled classes (target/classes) and JARs.
+ * Finds classes annotated with {@link Command}.
+ * Uses the compile-time component index for the classpath roots that ship one (see obsidian-processor).
+ * Other roots, compiled classes (target/classes) and JARs, are scanned by reading class file bytes
+ * and only loading the classes that reference {@code @Command}.
  */
 public class CommandDiscovery {
 
+    /** Type descriptor of {@link Command} as it appears in the constant pool of annotated classes */
+    private static final byte[] COMMAND_DESCRIPTOR =
+            ("L" + Command.class.getName().replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8);
 
     public static List<Class<?>> discover()
     {
+        Set<Class<?>> indexed = ClasspathIndex.indexedTypesAnnotatedWith(Command.class);
+
         List<Class<?>> found = new ArrayList<>();
+        if (indexed != null) {
+            indexed.stream().filter(cls -> cls.isAnnotationPresent(Command.class)).forEach(found::add);
+        }
         ClassLoader cl = Thread.currentThread().getContextClassLoader();
 
         for (URL url : classpathUrls(cl)) {
+            if (indexed != null && ClasspathIndex.isIndexed(url, Command.class)) continue;
             try {
                 File f = new File(url.toURI());
                 if      (f.isDirectory())             scanDir(f, f, cl, found);
@@ -51,7 +65,7 @@ public class CommandDiscovery {
         for (File f : files) {
             if (f.isDirectory()) {
                 scanDir(root, f, cl, found);
-            } else if (f.getName().endsWith(".class")) {
+            } else if (f.getName().endsWith(".class") && referencesCommand(read(f))) {
                 String name = root.toURI().relativize(f.toURI()).getPath()
                                   .replace('/', '.').replace(".class", "");
                 tryLoad(name, cl, found);
@@ -64,14 +78,48 @@ public class CommandDiscovery {
         try (JarFile jf = new JarFile(jar)) {
             Enumeration<JarEntry> entries = jf.entries();
             while (entries.hasMoreElements()) {
-                String name = entries.nextElement().getName();
-                if (name.endsWith(".class") && !name.contains("$")) {
-                    tryLoad(name.replace('/', '.').replace(".class", ""), cl, found);
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (!name.endsWith(".class") || name.contains("$") || name.startsWith("META-INF/")) continue;
+
+                try (InputStream in = jf.getInputStream(entry)) {
+                    if (referencesCommand(in.readAllBytes())) {
+                        tryLoad(name.replace('/', '.').replace(".class", ""), cl, found);
+                    }
                 }
             }
         }
     }
 
+    private static byte[] read(File file)
+    {
+        try { return Files.readAllBytes(file.toPath()); }
+        catch (IOException e) { return new byte[0]; }
+    }
+
+    /**
+     * Checks whether a class file mentions the {@link Command} descriptor.
+     * Cheap pre-filter: a match is confirmed by loading the class, a miss never needs loading.
+     *
+     * @param bytes Class file content
+     * @return true if the class may be annotated with @Command
+     */
+    private static boolean referencesCommand(byte[] bytes)
+    {
+        byte first = COMMAND_DESCRIPTOR[0];
+        int last = bytes.length - COMMAND_DESCRIPTOR.length;
+
+        outer:
+        for (int i = 0; i <= last; i++) {
+            if (bytes[i] != first) continue;
+            for (int j = 1; j < COMMAND_DESCRIPTOR.length; j++) {
+                if (bytes[i + j] != COMMAND_DESCRIPTOR[j]) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
     private static void tryLoad(String className, ClassLoader cl, List<Class<?>> found)
     {
         try {
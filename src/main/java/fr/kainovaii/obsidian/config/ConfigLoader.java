@@ -1,8 +1,7 @@
 package fr.kainovaii.obsidian.config;
 
+import fr.kainovaii.obsidian.core.ClasspathIndex;
 import fr.kainovaii.obsidian.config.annotations.Config;
-import fr.kainovaii.obsidian.core.Obsidian;
-import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,8 +27,7 @@ public class ConfigLoader
     {
         logger.info("Loading application configurations...");
         try {
-            Reflections reflections = new Reflections(Obsidian.getBasePackage());
-            Set<Class<?>> configClasses = reflections.getTypesAnnotatedWith(Config.class);
+            Set<Class<?>> configClasses = ClasspathIndex.typesAnnotatedWith(Config.class);
 
             List<ConfigEntry> configs = new ArrayList<>();
 
@@ -0,0 +1,345 @@
+package fr.kainovaii.obsidian.core;
+
+import org.reflections.Reflections;
+import org.reflections.scanners.Scanners;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Shared classpath index used by every framework scanner.
+ * Queries are answered from the compile-time index written by obsidian-processor ({@value #INDEX_RESOURCE})
+ * for the classpath roots that ship one. Roots without an index (modules built without the processor,
+ * third-party JARs) are scanned once per package, on first query, for both annotations and subtypes, and the
+ * results are merged; later queries are answered from memory. Like a scan, annotation queries also return
+ * subtypes of annotated types.
+ */
+public final class ClasspathIndex
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(ClasspathIndex.class);
+
+    /** Compile-time index location, see obsidian-processor */
+    public static final String INDEX_RESOURCE = "META-INF/obsidian/components.idx";
+
+    /** Scan results by package and scanned roots */
+    private static final Map<String, Reflections> indexes = new ConcurrentHashMap<>();
+
+    /** Compile-time index of the classpath, null until read */
+    private static volatile Precomputed precomputed;
+
+    /**
+     * Private constructor, static utility class.
+     */
+    private ClasspathIndex() {}
+
+    /**
+     * Finds classes of the application package annotated with an annotation, or extending an annotated type.
+     *
+     * @param annotation Annotation class
+     * @return Annotated classes
+     */
+    public static Set<Class<?>> typesAnnotatedWith(Class<? extends Annotation> annotation) {
+        return typesAnnotatedWith(Obsidian.getBasePackage(), annotation);
+    }
+
+    /**
+     * Finds classes of a package annotated with an annotation, or extending an annotated type.
+     *
+     * @param basePackage Package to search
+     * @param annotation Annotation class
+     * @return Annotated classes
+     */
+    public static Set<Class<?>> typesAnnotatedWith(String basePackage, Class<? extends Annotation> annotation)
+    {
+        long start = System.nanoTime();
+        String key = "@" + annotation.getName();
+        Set<Class<?>> types = fromPrecomputed(key, basePackage);
+
+        Reflections scan = scan(basePackage, key);
+        if (scan != null) {
+            types.addAll(scan.getTypesAnnotatedWith(annotation));
+            types.addAll(subTypesIn(scan, types));
+        }
+        logQuery("@" + annotation.getSimpleName(), types.size(), start);
+        return types;
+    }
+
+    /**
+     * Finds classes annotated with an annotation using the compile-time index only.
+     * Unlike {@link #typesAnnotatedWith(Class)}, never scans and is not limited to a package: callers scan
+     * the classpath roots for which {@link #isIndexed} is false themselves.
+     *
+     * @param annotation Annotation class
+     * @return Indexed classes, or null if no compile-time index covers this annotation
+     */
+    public static Set<Class<?>> indexedTypesAnnotatedWith(Class<? extends Annotation> annotation)
+    {
+        String key = "@" + annotation.getName();
+        return precomputed().roots(key).isEmpty() ? null : fromPrecomputed(key, "");
+    }
+
+    /**
+     * Checks if a classpath root ships a compile-time index covering an annotation.
+     *
+     * @param root Classpath root (directory or JAR)
+     * @param annotation Annotation class
+     * @return true if the root's annotated classes are listed in the index
+     */
+    public static boolean isIndexed(URL root, Class<? extends Annotation> annotation) {
+        return precomputed().roots("@" + annotation.getName()).contains(root(root.toExternalForm()));
+    }
+
+    /**
+     * Finds subclasses and implementations of a type in the application package.
+     *
+     * @param type Parent type
+     * @param <T> Parent type
+     * @return Subtypes
+     */
+    public static <T> Set<Class<? extends T>> subTypesOf(Class<T> type) {
+        return subTypesOf(Obsidian.getBasePackage(), type);
+    }
+
+    /**
+     * Finds subclasses and implementations of a type in a package.
+     *
+     * @param basePackage Package to search
+     * @param type Parent type
+     * @param <T> Parent type
+     * @return Subtypes
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Set<Class<? extends T>> subTypesOf(String basePackage, Class<T> type)
+    {
+        long start = System.nanoTime();
+        String key = "+" + type.getName();
+        Set<Class<?>> types = fromPrecomputed(key, basePackage);
+
+        Reflections scan = scan(basePackage, key);
+        if (scan != null) {
+            types.addAll(scan.getSubTypesOf(type));
+            types.addAll(subTypesIn(scan, types));
+        }
+        logQuery("subtypes of " + type.getSimpleName(), types.size(), start);
+        return (Set<Class<? extends T>>) (Set<?>) types;
+    }
+
+    /**
+     * Drops all scan results, e.g. once the application is started.
+     * The next query rescans the classpath.
+     */
+    public static void clear()
+    {
+        indexes.clear();
+        precomputed = null;
+    }
+
+    /**
+     * Answers a query from the compile-time index.
+     * Classes listed in the index but no longer on the classpath are skipped.
+     *
+     * @param key Index key
+     * @param basePackage Package to restrict results to
+     * @return Matching classes, empty if no index covers this key
+     */
+    private static Set<Class<?>> fromPrecomputed(String key, String basePackage)
+    {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        String prefix = basePackage.isEmpty() ? "" : basePackage + ".";
+        Set<Class<?>> types = new LinkedHashSet<>();
+
+        for (String name : precomputed().entries().getOrDefault(key, List.of())) {
+            if (!name.startsWith(prefix)) continue;
+            try {
+                types.add(Class.forName(name, false, loader));
+            } catch (ClassNotFoundException | LinkageError e) {
+                logger.debug("Skipping stale index entry {}", name);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Gets the scan of the roots of a package that no compile-time index covers for a key.
+     *
+     * @param basePackage Package to scan
+     * @param key Index key
+     * @return Reflections index, or null if every root of the package is indexed
+     */
+    private static Reflections scan(String basePackage, String key)
+    {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        Set<String> indexed = precomputed().roots(key);
+
+        List<URL> roots = new ArrayList<>();
+        for (URL root : ClasspathHelper.forPackage(basePackage, loader)) {
+            if (!indexed.contains(root(root.toExternalForm()))) roots.add(root);
+        }
+        if (roots.isEmpty()) return null;
+
+        String cacheKey = basePackage + " " + roots.stream().map(URL::toExternalForm).sorted().toList();
+        return indexes.computeIfAbsent(cacheKey, k -> {
+            long start = System.nanoTime();
+            Reflections reflections = new Reflections(new ConfigurationBuilder()
+                    .setUrls(roots)
+                    .addClassLoaders(loader)
+                    .filterInputsBy(new FilterBuilder().includePackage(basePackage))
+                    .setScanners(Scanners.TypesAnnotated, Scanners.SubTypes));
+            logger.info("Indexed classpath for {} in {} ms ({} root(s) without compile-time index)",
+                    basePackage, (System.nanoTime() - start) / 1_000_000, roots.size());
+            return reflections;
+        });
+    }
+
+    /**
+     * Finds the scanned subtypes of types found elsewhere, e.g. a scanned class extending an indexed one.
+     *
+     * @param scan Scan of the unindexed roots
+     * @param types Types already found
+     * @return Subtypes in the scanned roots
+     */
+    private static Set<Class<?>> subTypesIn(Reflections scan, Set<Class<?>> types)
+    {
+        if (types.isEmpty()) return Set.of();
+        List<String> names = types.stream().map(Class::getName).toList();
+        return scan.get(Scanners.SubTypes.of(names).as(Class.class, Thread.currentThread().getContextClassLoader()))
+                .stream()
+                .<Class<?>>map(type -> (Class<?>) type)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Reads every compile-time index on the classpath, once.
+     *
+     * @return Index, empty if no index is present
+     */
+    private static Precomputed precomputed()
+    {
+        Precomputed current = precomputed;
+        if (current != null) return current;
+
+        synchronized (ClasspathIndex.class) {
+            if (precomputed != null) return precomputed;
+
+            long start = System.nanoTime();
+            Map<String, List<String>> entries = new HashMap<>();
+            Map<String, Set<String>> roots = new HashMap<>();
+            int files = 0;
+
+            try {
+                Enumeration<URL> resources = Thread.currentThread().getContextClassLoader().getResources(INDEX_RESOURCE);
+                while (resources.hasMoreElements()) {
+                    URL url = resources.nextElement();
+                    String form = url.toExternalForm();
+                    readIndex(url, root(form.substring(0, form.length() - INDEX_RESOURCE.length())), entries, roots);
+                    files++;
+                }
+            } catch (IOException e) {
+                logger.warn("Cannot read component index, falling back to classpath scanning: {}", e.getMessage());
+                entries.clear();
+                roots.clear();
+            }
+
+            if (files > 0) {
+                logger.info("Loaded precomputed component index ({} file(s)) in {} ms", files, (System.nanoTime() - start) / 1_000_000);
+            }
+
+            precomputed = new Precomputed(Map.copyOf(entries), Map.copyOf(roots));
+            return precomputed;
+        }
+    }
+
+    /**
+     * Reads one index file into the entry map.
+     *
+     * @param url Index file
+     * @param root Classpath root holding the file
+     * @param entries Entries by key
+     * @param roots Roots covered by each key
+     * @throws IOException if the file cannot be read
+     */
+    private static void readIndex(URL url, String root, Map<String, List<String>> entries, Map<String, Set<String>> roots)
+            throws IOException
+    {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                int space = line.indexOf(' ');
+                String key = space < 0 ? line : line.substring(0, space);
+                List<String> names = entries.computeIfAbsent(key, k -> new ArrayList<>());
+                roots.computeIfAbsent(key, k -> new HashSet<>()).add(root);
+                if (space >= 0) names.add(line.substring(space + 1).trim());
+            }
+        }
+    }
+
+    /**
+     * Normalizes a classpath root URL, so an index resource and a scanned root compare equal:
+     * jar:file:/app.jar!/ and file:/app.jar both become file:/app.jar.
+     *
+     * @param url Root URL
+     * @return Normalized root
+     */
+    private static String root(String url)
+    {
+        if (url.startsWith("jar:")) {
+            int separator = url.lastIndexOf("!/");
+            url = url.substring(4, separator >= 0 ? separator : url.length());
+        }
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * Logs the duration of a query.
+     *
+     * @param what Query description
+     * @param count Number of results
+     * @param start Start time in nanoseconds
+     */
+    private static void logQuery(String what, int count, long start)
+    {
+        logger.debug("Scanned {}: {} type(s) in {} us", what, count, (System.nanoTime() - start) / 1_000);
+    }
+
+    /**
+     * Compile-time index of the classpath.
+     *
+     * @param entries Class names by key ("@annotation" or "+parent"), merged across index files
+     * @param covered Roots whose index declares each key
+     */
+    private record Precomputed(Map<String, List<String>> entries, Map<String, Set<String>> covered)
+    {
+        /**
+         * Gets the roots whose index covers a key.
+         *
+         * @param key Index key
+         * @return Normalized roots
+         */
+        Set<String> roots(String key) {
+            return covered.getOrDefault(key, Set.of());
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package fr.kainovaii.obsidian.core;
 
 import io.github.cdimascio.dotenv.Dotenv;
+import io.github.cdimascio.dotenv.DotenvEntriesFilter;
+import io.github.cdimascio.dotenv.DotenvEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,11 +11,23 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * Environment configuration loader for Obsidian applications.
  * Handles .env file discovery, creation from template, and variable access.
+ * Values are read once into an immutable {@link EnvSnapshot}; reads never touch the filesystem.
  */
 public class EnvLoader
 {
@@ -21,9 +35,54 @@ public class EnvLoader
     private static final String ENV_FILE = ".env";
     private static final String ENV_TEMPLATE = "/env.template";
 
-    private Dotenv dotenv;
+    /** Shared loader, loaded once at boot */
+    private static volatile EnvLoader shared;
+
     private final Path workingDirectory;
 
+    /** Current snapshot, swapped atomically on reload */
+    private final AtomicReference<EnvSnapshot> snapshot = new AtomicReference<>();
+
+    /** Listeners notified after a reload */
+    private final List<Consumer<EnvSnapshot>> listeners = new CopyOnWriteArrayList<>();
+
+    /** File watcher thread, null until {@link #watch()} is called */
+    private Thread watcher;
+
+    /**
+     * Gets the application-wide loader, loading the .env file on first call only.
+     *
+     * @return Shared loaded instance
+     */
+    public static EnvLoader shared()
+    {
+        EnvLoader loader = shared;
+        if (loader == null) {
+            synchronized (EnvLoader.class) {
+                loader = shared;
+                if (loader == null) {
+                    loader = new EnvLoader();
+                    loader.load();
+                    shared = loader;
+                }
+            }
+        }
+        return loader;
+    }
+
+    /**
+     * Replaces the shared loader, for applications or tests loading their configuration from another directory.
+     *
+     * @param loader Loaded environment, or null to load the working directory again on next use
+     * @return Previous shared loader, or null if none was loaded, so tests can put it back
+     */
+    public static synchronized EnvLoader useShared(EnvLoader loader)
+    {
+        EnvLoader previous = shared;
+        shared = loader;
+        return previous;
+    }
+
     /**
      * Creates an EnvLoader with the current working directory.
      */
@@ -58,11 +117,7 @@ public class EnvLoader
                 copyTemplateEnv(envFile);
             }
 
-            dotenv = Dotenv.configure()
-                    .directory(workingDirectory.toString())
-                    .filename(ENV_FILE)
-                    .ignoreIfMissing()
-                    .load();
+            snapshot.set(readSnapshot());
 
             logger.info("Environment configuration loaded successfully");
 
@@ -96,10 +151,8 @@ public class EnvLoader
      * @param key The variable name
      * @return The variable value, or null if not found
      */
-    public String get(String key)
-    {
-        ensureLoaded();
-        return dotenv.get(key);
+    public String get(String key) {
+        return snapshot().get(key);
     }
 
     /**
@@ -108,10 +161,8 @@ public class EnvLoader
      * @param key The variable name
      * @return Optional containing the value, or empty if not found
      */
-    public Optional<String> getOptional(String key)
-    {
-        ensureLoaded();
-        return Optional.ofNullable(dotenv.get(key));
+    public Optional<String> getOptional(String key) {
+        return snapshot().getOptional(key);
     }
 
     /**
@@ -121,10 +172,8 @@ public class EnvLoader
      * @param defaultValue The default value if key is not found
      * @return The variable value, or defaultValue if not found
      */
-    public String get(String key, String defaultValue)
-    {
-        ensureLoaded();
-        return dotenv.get(key, defaultValue);
+    public String get(String key, String defaultValue) {
+        return snapshot().get(key, defaultValue);
     }
 
     /**
@@ -134,16 +183,8 @@ public class EnvLoader
      * @return The variable value
      * @throws IllegalStateException if the key is not found
      */
-    public String getRequired(String key)
-    {
-        ensureLoaded();
-        String value = dotenv.get(key);
-        if (value == null || value.isBlank()) {
-            throw new IllegalStateException(
-                    "Required environment variable not found: " + key
-            );
-        }
-        return value;
+    public String getRequired(String key) {
+        return snapshot().getRequired(key);
     }
 
     /**
@@ -153,15 +194,8 @@ public class EnvLoader
      * @param defaultValue The default value if key is not found or invalid
      * @return The integer value
      */
-    public int getInt(String key, int defaultValue)
-    {
-        try {
-            String value = get(key);
-            return value != null ? Integer.parseInt(value) : defaultValue;
-        } catch (NumberFormatException e) {
-            logger.warn("Invalid integer value for {}, using default: {}", key, defaultValue);
-            return defaultValue;
-        }
+    public int getInt(String key, int defaultValue) {
+        return snapshot().getInt(key, defaultValue);
     }
 
     /**
@@ -171,22 +205,148 @@ public class EnvLoader
      * @param defaultValue The default value if key is not found
      * @return The boolean value
      */
-    public boolean getBoolean(String key, boolean defaultValue)
-    {
-        String value = get(key);
-        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return snapshot().getBoolean(key, defaultValue);
+    }
+
+    /**
+     * Retrieves an environment variable as a duration.
+     *
+     * @param key The variable name
+     * @param defaultValue The default value if key is not found or invalid
+     * @return The duration value
+     */
+    public Duration getDuration(String key, Duration defaultValue) {
+        return snapshot().getDuration(key, defaultValue);
     }
 
     /**
-     * Checks if the environment has been loaded.
+     * Retrieves an environment variable as a byte size.
+     *
+     * @param key The variable name
+     * @param defaultValue The default value if key is not found or invalid
+     * @return The size in bytes
+     */
+    public long getSize(String key, long defaultValue) {
+        return snapshot().getSize(key, defaultValue);
+    }
+
+    /**
+     * Gets the current immutable snapshot.
+     *
+     * @return Current snapshot
+     * @throws IllegalStateException if the environment has not been loaded
      */
-    private void ensureLoaded()
+    public EnvSnapshot snapshot()
     {
-        if (dotenv == null) {
+        EnvSnapshot current = snapshot.get();
+        if (current == null) {
             throw new IllegalStateException(
                     "Environment not loaded. Call load() first."
             );
         }
+        return current;
+    }
+
+    /**
+     * Registers a listener called with the new snapshot after each reload.
+     *
+     * @param listener Reload listener
+     */
+    public void onReload(Consumer<EnvSnapshot> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Watches the .env file and atomically swaps the snapshot when it changes.
+     * Opt-in: readers keep seeing a consistent snapshot, never a half-parsed file.
+     * Does nothing if already watching.
+     */
+    public synchronized void watch()
+    {
+        if (watcher != null) return;
+
+        try {
+            WatchService service = workingDirectory.getFileSystem().newWatchService();
+            workingDirectory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            watcher = new Thread(() -> watchLoop(service), "obsidian-env-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+
+            logger.info("Watching {} for changes", workingDirectory.resolve(ENV_FILE));
+        } catch (IOException e) {
+            logger.warn("Cannot watch environment file: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads the snapshot whenever the .env file is created or modified.
+     *
+     * @param service Watch service registered on the working directory
+     */
+    private void watchLoop(WatchService service)
+    {
+        try (service) {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = service.take();
+                boolean changed = false;
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path path && path.toString().equals(ENV_FILE)) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+
+                if (changed) reload();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.warn("Environment watcher stopped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-reads the .env file and swaps the snapshot.
+     * Keeps the previous snapshot if the file cannot be parsed.
+     */
+    public void reload()
+    {
+        try {
+            EnvSnapshot next = readSnapshot();
+            snapshot.set(next);
+            logger.info("Environment configuration reloaded");
+            for (Consumer<EnvSnapshot> listener : listeners) {
+                listener.accept(next);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to reload environment configuration, keeping previous values: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the .env file and the process environment into a snapshot.
+     * Process environment variables take precedence, as with Dotenv lookups.
+     *
+     * @return New snapshot
+     */
+    private EnvSnapshot readSnapshot()
+    {
+        Dotenv dotenv = Dotenv.configure()
+                .directory(workingDirectory.toString())
+                .filename(ENV_FILE)
+                .ignoreIfMissing()
+                .load();
+
+        Map<String, String> values = new HashMap<>();
+        for (DotenvEntry entry : dotenv.entries(DotenvEntriesFilter.DECLARED_IN_ENV_FILE)) {
+            values.put(entry.getKey(), entry.getValue());
+        }
+        values.putAll(System.getenv());
+
+        return new EnvSnapshot(values);
     }
 
     /**
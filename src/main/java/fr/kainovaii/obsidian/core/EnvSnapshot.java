@@ -0,0 +1,315 @@
+package fr.kainovaii.obsidian.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable view of the environment at a point in time.
+ * Every value is parsed once when the snapshot is built (integer, boolean, duration, byte size),
+ * so typed reads on the hot path are plain map lookups.
+ */
+public final class EnvSnapshot
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(EnvSnapshot.class);
+
+    /** Parsed values by key */
+    private final Map<String, Value> values;
+
+    /**
+     * Builds a snapshot from raw key/value pairs.
+     *
+     * @param raw Raw variables
+     */
+    public EnvSnapshot(Map<String, String> raw)
+    {
+        Map<String, Value> parsed = new HashMap<>();
+        raw.forEach((key, value) -> {
+            if (value != null) parsed.put(key, Value.parse(value));
+        });
+        this.values = Collections.unmodifiableMap(parsed);
+    }
+
+    /**
+     * Retrieves a raw value.
+     *
+     * @param key The variable name
+     * @return The value, or null if not found
+     */
+    public String get(String key)
+    {
+        Value value = values.get(key);
+        return value != null ? value.raw : null;
+    }
+
+    /**
+     * Retrieves a raw value with a default.
+     *
+     * @param key The variable name
+     * @param defaultValue The default value if key is not found
+     * @return The value, or defaultValue if not found
+     */
+    public String get(String key, String defaultValue)
+    {
+        String value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Retrieves a value as Optional.
+     *
+     * @param key The variable name
+     * @return Optional containing the value, or empty if not found
+     */
+    public Optional<String> getOptional(String key) {
+        return Optional.ofNullable(get(key));
+    }
+
+    /**
+     * Retrieves a required value.
+     *
+     * @param key The variable name
+     * @return The value
+     * @throws IllegalStateException if the key is not found or blank
+     */
+    public String getRequired(String key)
+    {
+        String value = get(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException("Required environment variable not found: " + key);
+        }
+        return value;
+    }
+
+    /**
+     * Retrieves a value as an integer.
+     *
+     * @param key The variable name
+     * @param defaultValue The default value if key is not found or not an integer
+     * @return The integer value
+     */
+    public int getInt(String key, int defaultValue)
+    {
+        Value value = values.get(key);
+        if (value == null) return defaultValue;
+        if (value.integer == null) {
+            logger.warn("Invalid integer value for {}, using default: {}", key, defaultValue);
+            return defaultValue;
+        }
+        return value.integer;
+    }
+
+    /**
+     * Retrieves a value as a long.
+     *
+     * @param key The variable name
+     * @param defaultValue The default value if key is not found or not a number
+     * @return The long value
+     */
+    public long getLong(String key, long defaultValue)
+    {
+        Value value = values.get(key);
+        return value != null && value.number != null ? value.number : defaultValue;
+    }
+
+    /**
+     * Retrieves a value as a boolean.
+     *
+     * @param key The variable name
+     * @param defaultValue The default value if key is not found
+     * @return The boolean value
+     */
+    public boolean getBoolean(String key, boolean defaultValue)
+    {
+        Value value = values.get(key);
+        return value != null ? value.bool : defaultValue;
+    }
+
+    /**
+     * Retrieves a value as a duration.
+     * Accepts ISO-8601 (PT30S) or a number with unit: ms, s, m, h, d (plain numbers are milliseconds).
+     *
+     * @param key The variable name
+     * @param defaultValue The default value if key is not found or not a duration
+     * @return The duration value
+     */
+    public Duration getDuration(String key, Duration defaultValue)
+    {
+        Value value = values.get(key);
+        return value != null && value.duration != null ? value.duration : defaultValue;
+    }
+
+    /**
+     * Retrieves a value as a byte size.
+     * Accepts a number with optional unit: b, k/kb, m/mb, g/gb (binary multiples).
+     *
+     * @param key The variable name
+     * @param defaultValue The default value if key is not found or not a size
+     * @return The size in bytes
+     */
+    public long getSize(String key, long defaultValue)
+    {
+        Value value = values.get(key);
+        return value != null && value.bytes != null ? value.bytes : defaultValue;
+    }
+
+    /**
+     * Checks if a key is defined.
+     *
+     * @param key The variable name
+     * @return true if defined
+     */
+    public boolean has(String key) {
+        return values.containsKey(key);
+    }
+
+    /**
+     * Gets all raw values.
+     *
+     * @return Unmodifiable map of raw values
+     */
+    public Map<String, String> asMap()
+    {
+        Map<String, String> raw = new HashMap<>();
+        values.forEach((key, value) -> raw.put(key, value.raw));
+        return Collections.unmodifiableMap(raw);
+    }
+
+    /**
+     * Raw value with its typed interpretations, null when not applicable.
+     */
+    private static final class Value
+    {
+        /** Raw string */
+        final String raw;
+
+        /** Integer interpretation */
+        final Integer integer;
+
+        /** Long interpretation */
+        final Long number;
+
+        /** Boolean interpretation */
+        final boolean bool;
+
+        /** Duration interpretation */
+        final Duration duration;
+
+        /** Byte size interpretation */
+        final Long bytes;
+
+        /**
+         * Constructor.
+         */
+        private Value(String raw, Integer integer, Long number, boolean bool, Duration duration, Long bytes)
+        {
+            this.raw = raw;
+            this.integer = integer;
+            this.number = number;
+            this.bool = bool;
+            this.duration = duration;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Parses every interpretation of a raw value.
+         * Integers and booleans are read like Integer.parseInt and Boolean.parseBoolean would.
+         *
+         * @param raw Raw string
+         * @return Parsed value
+         */
+        static Value parse(String raw)
+        {
+            String text = raw.trim().toLowerCase(Locale.ROOT);
+            return new Value(raw, parseInt(raw), parseLong(text), Boolean.parseBoolean(raw), parseDuration(text), parseSize(text));
+        }
+
+        /**
+         * Parses an integer.
+         */
+        private static Integer parseInt(String raw)
+        {
+            try {
+                return Integer.parseInt(raw);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Parses a long.
+         */
+        private static Long parseLong(String text)
+        {
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Parses a duration.
+         */
+        private static Duration parseDuration(String text)
+        {
+            if (text.startsWith("p")) {
+                try {
+                    return Duration.parse(text.toUpperCase(Locale.ROOT));
+                } catch (DateTimeParseException e) {
+                    return null;
+                }
+            }
+
+            int split = unitIndex(text);
+            Long amount = parseLong(text.substring(0, split).trim());
+            if (amount == null) return null;
+
+            return switch (text.substring(split).trim()) {
+                case "", "ms" -> Duration.ofMillis(amount);
+                case "s" -> Duration.ofSeconds(amount);
+                case "m" -> Duration.ofMinutes(amount);
+                case "h" -> Duration.ofHours(amount);
+                case "d" -> Duration.ofDays(amount);
+                default -> null;
+            };
+        }
+
+        /**
+         * Parses a byte size.
+         */
+        private static Long parseSize(String text)
+        {
+            int split = unitIndex(text);
+            Long amount = parseLong(text.substring(0, split).trim());
+            if (amount == null) return null;
+
+            return switch (text.substring(split).trim()) {
+                case "", "b" -> amount;
+                case "k", "kb" -> amount << 10;
+                case "m", "mb" -> amount << 20;
+                case "g", "gb" -> amount << 30;
+                default -> null;
+            };
+        }
+
+        /**
+         * Finds where the numeric part of a value ends.
+         */
+        private static int unitIndex(String text)
+        {
+            int i = 0;
+            if (i < text.length() && text.charAt(i) == '-') i++;
+            while (i < text.length() && Character.isDigit(text.charAt(i))) i++;
+            return i;
+        }
+    }
+}
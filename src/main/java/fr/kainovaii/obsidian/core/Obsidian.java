@@ -119,14 +119,20 @@ public class Obsidian
 
     /**
      * Loads configuration and environment variables.
+     * The .env file is parsed on first call only; later calls return the same loader.
      *
      * @return EnvLoader instance containing configuration
      */
-    public static EnvLoader loadConfigAndEnv()
+    public static EnvLoader loadConfigAndEnv() { return EnvLoader.shared(); }
+
+    /**
+     * Starts watching the .env file when ENV_WATCH is enabled.
+     * Changes are applied by atomically swapping the configuration snapshot.
+     */
+    public void watchEnv()
     {
-        EnvLoader env = new EnvLoader();
-        env.load();
-        return env;
+        EnvLoader env = loadConfigAndEnv();
+        if (env.getBoolean("ENV_WATCH", false)) env.watch();
     }
 
     public void startCli() {
@@ -143,16 +149,14 @@ public class Obsidian
      *
      * @return Configured port for web server
      */
-    public static int getWebPort() { return Integer.parseInt(Obsidian.loadConfigAndEnv().get("PORT_WEB")); }
+    public static int getWebPort() { return Integer.parseInt(Obsidian.loadConfigAndEnv().getRequired("PORT_WEB").trim()); }
 
     /**
      * Displays startup message (MOTD) in console.
      */
     public void registerMotd()
     {
-        EnvLoader env = new EnvLoader();
-
-        env.load();
+        EnvLoader env = loadConfigAndEnv();
         final String RESET = "\u001B[0m";
         final String CYAN = "\u001B[36m";
         final String GREEN = "\u001B[32m";
@@ -184,7 +188,7 @@ public class Obsidian
     public void init()
     {
         registerMotd();
-        loadConfigAndEnv();
+        watchEnv();
         loadConfig();
         connectDatabase();
         loadMigrations();
@@ -192,6 +196,7 @@ public class Obsidian
         loadContainer();
         loadLiveComponents();
         startWebServer();
+        Registry.freezeAll();
     }
 
     /**
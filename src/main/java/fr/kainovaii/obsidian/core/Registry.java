@@ -0,0 +1,208 @@
+package fr.kainovaii.obsidian.core;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Framework registry with a boot phase and a serving phase.
+ * While booting, entries live in a concurrent map. {@link #freezeAll()} then turns every registry
+ * into an immutable map: reads are a volatile read plus a lookup, with no locking.
+ * Registrations after freezing are still allowed; they take a lock and publish a new immutable copy.
+ * The lock is a ReentrantLock, since computeIfAbsent may run constructors that block.
+ * Neither map accepts null, so null keys and values are rejected on registration.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public final class Registry<K, V>
+{
+    /** Every registry created, frozen together once the application is started */
+    private static final List<Registry<?, ?>> all = new CopyOnWriteArrayList<>();
+
+    /** Registry name used in logs and errors */
+    private final String name;
+
+    /** Current entries: concurrent while booting, immutable once frozen */
+    private volatile Map<K, V> entries = new ConcurrentHashMap<>();
+
+    /** Whether the registry has been frozen */
+    private volatile boolean frozen;
+
+    /** Lock serializing writes */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Constructor.
+     *
+     * @param name Registry name
+     */
+    private Registry(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Creates a registry frozen by {@link #freezeAll()}.
+     *
+     * @param name Registry name
+     * @param <K> Key type
+     * @param <V> Value type
+     * @return New registry
+     */
+    public static <K, V> Registry<K, V> create(String name)
+    {
+        Registry<K, V> registry = new Registry<>(name);
+        all.add(registry);
+        return registry;
+    }
+
+    /**
+     * Freezes every registry. Called once boot is complete.
+     */
+    public static void freezeAll()
+    {
+        for (Registry<?, ?> registry : all) {
+            registry.freeze();
+        }
+    }
+
+    /**
+     * Freezes this registry into an immutable map.
+     */
+    public void freeze()
+    {
+        lock.lock();
+        try {
+            if (frozen) return;
+            entries = Map.copyOf(entries);
+            frozen = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param key Key
+     * @return Value or null if absent
+     */
+    public V get(Object key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Gets a value with a default.
+     *
+     * @param key Key
+     * @param defaultValue Value returned if absent
+     * @return Value or defaultValue
+     */
+    public V getOrDefault(Object key, V defaultValue) {
+        return entries.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * Checks if a key is registered.
+     *
+     * @param key Key
+     * @return true if present
+     */
+    public boolean containsKey(Object key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Registers a value, replacing any previous one.
+     *
+     * @param key Key (not null)
+     * @param value Value (not null)
+     * @throws NullPointerException if the key or value is null
+     */
+    public void put(K key, V value)
+    {
+        Objects.requireNonNull(key, () -> "Registry " + name + " does not accept null keys");
+        Objects.requireNonNull(value, () -> "Registry " + name + " does not accept null values (key " + key + ")");
+
+        lock.lock();
+        try {
+            if (!frozen) {
+                entries.put(key, value);
+                return;
+            }
+            Map<K, V> copy = new HashMap<>(entries);
+            copy.put(key, value);
+            entries = Map.copyOf(copy);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets a value, computing and registering it if absent.
+     * The function runs at most once per key; a null result is returned without being registered.
+     *
+     * @param key Key
+     * @param function Value factory
+     * @return Existing or computed value, or null
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function)
+    {
+        V value = entries.get(key);
+        if (value != null) return value;
+
+        lock.lock();
+        try {
+            value = entries.get(key);
+            if (value == null) {
+                value = function.apply(key);
+                if (value != null) put(key, value);
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all entries and returns to the boot phase.
+     */
+    public void clear()
+    {
+        lock.lock();
+        try {
+            entries = new ConcurrentHashMap<>();
+            frozen = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets a read-only view of the current entries.
+     *
+     * @return Unmodifiable snapshot
+     */
+    public Map<K, V> snapshot() {
+        return Map.copyOf(entries);
+    }
+
+    /**
+     * Checks if the registry has been frozen.
+     *
+     * @return true once frozen
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    @Override
+    public String toString() {
+        return "Registry[" + name + ", " + entries.size() + " entries" + (frozen ? ", frozen" : "") + "]";
+    }
+}
@@ -1,18 +1,20 @@
 package fr.kainovaii.obsidian.core;
 
 import fr.kainovaii.obsidian.error.ErrorHandler;
+import fr.kainovaii.obsidian.http.asset.AssetManifest;
 import fr.kainovaii.obsidian.livecomponents.http.LiveComponentsScriptRoute;
 import fr.kainovaii.obsidian.security.role.RoleChecker;
 import fr.kainovaii.obsidian.http.controller.ControllerLoader;
+import fr.kainovaii.obsidian.http.limit.ConcurrencyLimiter;
+import fr.kainovaii.obsidian.http.server.ServerConfig;
+import fr.kainovaii.obsidian.http.server.ServerFactory;
+import fr.kainovaii.obsidian.livecomponents.session.SessionContext;
 import fr.kainovaii.obsidian.realtime.websocket.WebSocketLoader;
+import fr.kainovaii.obsidian.template.TemplateContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.InputStream;
-import java.util.Map;
-
 import static fr.kainovaii.obsidian.http.controller.BaseController.*;
-import static fr.kainovaii.obsidian.template.TemplateManager.setGlobal;
 import static spark.Spark.*;
 
 /**
@@ -30,39 +32,52 @@ public class WebServer
      */
     public void start()
     {
-        ipAddress("0.0.0.0");
-        port(Obsidian.getWebPort());
-        staticFiles.location("/");
+        EnvLoader env = Obsidian.loadConfigAndEnv();
+        ServerConfig server = ServerConfig.from(env);
+        ServerFactory.install(server, ConcurrencyLimiter.fromEnv(env));
+
+        ipAddress(server.host());
+        port(server.port());
+        staticFiles.location(server.staticLocation());
+        AssetManifest.initialize(server.staticLocation(), env);
 
         logger.info("Loading WebSocket handlers...");
         WebSocketLoader.registerWebSockets();
 
         logger.info("Initializing Spark...");
-        get("/obsidian/livecomponents.js", new LiveComponentsScriptRoute());
+        get(LiveComponentsScriptRoute.PATH, new LiveComponentsScriptRoute());
 
         // Global exception handler
         exception(Exception.class, (e, req, res) -> {
             res.body(ErrorHandler.handle(e, req, res));
         });
 
+        logger.info("Loading global advices...");
+        ControllerLoader.loadAdvices();
+
+        // Request template variables, computed only when a template reads them
+        TemplateContext.provide("isLogged", context -> isLogged(context.request()));
+        TemplateContext.provide("loggedUser", context -> isLogged(context.request()) ? getLoggedUser(context.request()) : null);
+        TemplateContext.provide("flashes", context -> collectFlashes(context.request()));
+
         // Request preprocessing middleware
         before((req, res) ->
         {
-            setGlobal("request", req);
-            setGlobal("response", res);
-            setGlobal("isLogged", isLogged(req));
-            if (isLogged(req)) setGlobal("loggedUser", getLoggedUser(req));
-            Map<String, String> flashes = collectFlashes(req);
-            setGlobal("flashes", flashes);
-
-            ControllerLoader.loadAdvicesControllers(req, res);
+            TemplateContext.open(req, res);
+
+            ControllerLoader.applyAdvices(req, res);
             RoleChecker.checkAccess(req, res);
         });
 
+        afterAfter((req, res) -> {
+            TemplateContext.close();
+            SessionContext.clear();
+        });
+
         ControllerLoader.loadControllers();
 
         init();
 
-        logger.info("Web server started on port {}", Obsidian.getWebPort());
+        logger.info("Web server started on port {}", server.port());
     }
 }
\ No newline at end of file
@@ -3,8 +3,12 @@ package fr.kainovaii.obsidian.database;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.javalite.activejdbc.Base;
+import fr.kainovaii.obsidian.http.resilience.Deadline;
+import fr.kainovaii.obsidian.http.resilience.DeadlineExceededException;
 import org.slf4j.Logger;
 
+import java.sql.Connection;
+import java.sql.DriverManager;
 import java.util.concurrent.Callable;
 
 /**
@@ -167,6 +171,7 @@ public class DB
     /**
      * Executes a task with database connection.
      * Opens connection if needed, closes it after execution.
+     * Under a request deadline (@Timeout), statements get a query timeout and nothing runs once it has passed.
      *
      * @param task Task to execute
      * @param <T> Return type
@@ -174,6 +179,7 @@ public class DB
      */
     public <T> T executeWithConnection(Callable<T> task)
     {
+        Deadline.checkCurrent();
         boolean created = false;
         try {
             if (!Base.hasConnection()) {
@@ -183,7 +189,7 @@ public class DB
             return task.call();
         } catch (Exception e) {
             logger.error("Database error: " + e.getMessage());
-            throw new RuntimeException(e);
+            throw failure(e);
         } finally {
             if (created && Base.hasConnection()) {
                 Base.close();
@@ -194,6 +200,7 @@ public class DB
     /**
      * Executes a task within a transaction.
      * Commits on success, rolls back on failure.
+     * Under a request deadline (@Timeout), statements get a query timeout and nothing runs once it has passed.
      *
      * @param task Task to execute
      * @param <T> Return type
@@ -201,6 +208,7 @@ public class DB
      */
     public <T> T executeWithTransaction(Callable<T> task)
     {
+        Deadline.checkCurrent();
         boolean created = false;
         try {
             if (!Base.hasConnection()) {
@@ -216,7 +224,7 @@ public class DB
                 Base.rollbackTransaction();
             }
             logger.error("Transaction failed: " + e.getMessage());
-            throw new RuntimeException(e);
+            throw failure(e);
         } finally {
             if (created && Base.hasConnection()) {
                 Base.close();
@@ -224,6 +232,26 @@ public class DB
         }
     }
 
+    /**
+     * Wraps a database error; once the request deadline has passed, the error is reported as the deadline
+     * being exceeded, since statements are cancelled or time out at that point.
+     *
+     * @param e Database error
+     * @return Exception to throw
+     */
+    private static RuntimeException failure(Exception e)
+    {
+        if (e instanceof DeadlineExceededException exceeded) return exceeded;
+
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired()) {
+            DeadlineExceededException exceeded = new DeadlineExceededException("Deadline of " + deadline.budget().toMillis() + "ms exceeded during query");
+            exceeded.initCause(e);
+            return exceeded;
+        }
+        return new RuntimeException(e);
+    }
+
     /**
      * Closes database connection and connection pool.
      */
@@ -250,11 +278,18 @@ public class DB
     /**
      * Opens database connection.
      * Uses JDBC for SQLite, connection pool for MySQL/PostgreSQL.
+     * Under a request deadline the connection is wrapped to bound every statement.
      */
     private void connect()
     {
         try {
-            if (type.equals("sqlite")) {
+            Deadline deadline = Deadline.current();
+            if (deadline != null && (type.equals("sqlite") || pool != null)) {
+                Connection connection = type.equals("sqlite")
+                        ? DriverManager.getConnection("jdbc:sqlite:" + dbPath)
+                        : pool.getConnection();
+                Base.attach(DeadlineConnection.wrap(connection, deadline));
+            } else if (type.equals("sqlite")) {
                 String url = "jdbc:sqlite:" + dbPath;
                 Base.open("org.sqlite.JDBC", url, "", "");
             } else if (pool != null) {
@@ -0,0 +1,130 @@
+package fr.kainovaii.obsidian.database;
+
+import fr.kainovaii.obsidian.http.resilience.Deadline;
+import fr.kainovaii.obsidian.http.resilience.DeadlineExceededException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection proxy applying the request {@link Deadline} to every statement it creates.
+ * Each statement gets a query timeout equal to the time left, and statements still running
+ * when the deadline passes are cancelled (drivers such as SQLite only apply query timeouts to lock waits),
+ * so the database abandons work whose client budget is already spent.
+ */
+final class DeadlineConnection implements InvocationHandler
+{
+    /** Timer cancelling statements at their deadline */
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "obsidian-deadline-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Wrapped connection */
+    private final Connection connection;
+
+    /** Deadline to apply */
+    private final Deadline deadline;
+
+    /** Statements created through this connection */
+    private final List<Statement> statements = new CopyOnWriteArrayList<>();
+
+    /** Scheduled cancellation, cleared when the connection closes */
+    private volatile ScheduledFuture<?> cancellation;
+
+    /**
+     * Constructor.
+     *
+     * @param connection Wrapped connection
+     * @param deadline Deadline to apply
+     */
+    private DeadlineConnection(Connection connection, Deadline deadline)
+    {
+        this.connection = connection;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Wraps a connection.
+     *
+     * @param connection JDBC connection
+     * @param deadline Request deadline
+     * @return Connection whose statements are bounded by the deadline
+     */
+    static Connection wrap(Connection connection, Deadline deadline)
+    {
+        DeadlineConnection handler = new DeadlineConnection(connection, deadline);
+        handler.cancellation = timer.schedule(handler::cancelStatements,
+                Math.max(0, deadline.remaining().toNanos()), TimeUnit.NANOSECONDS);
+
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                handler
+        );
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        if (method.getName().equals("close")) {
+            cancellation.cancel(false);
+            statements.clear();
+        }
+
+        Object result;
+        try {
+            result = method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+
+        if (result instanceof Statement statement) {
+            applyTimeout(statement);
+            statements.add(statement);
+        }
+        return result;
+    }
+
+    /**
+     * Cancels the statements still open when the deadline passes.
+     */
+    private void cancelStatements()
+    {
+        for (Statement statement : statements) {
+            try {
+                if (!statement.isClosed()) statement.cancel();
+            } catch (SQLException ignored) {
+                // statement finished or driver does not support cancel
+            }
+        }
+    }
+
+    /**
+     * Sets the statement timeout to the time left, rounded up to whole seconds as JDBC requires.
+     *
+     * @param statement New statement
+     * @throws SQLException if the driver rejects the timeout
+     */
+    private void applyTimeout(Statement statement) throws SQLException
+    {
+        long millis = deadline.remaining().toMillis();
+        if (millis <= 0) {
+            statement.close();
+            throw new DeadlineExceededException("Deadline of " + deadline.budget().toMillis() + "ms exceeded before query");
+        }
+        statement.setQueryTimeout((int) Math.max(1, (millis + 999) / 1000));
+    }
+}
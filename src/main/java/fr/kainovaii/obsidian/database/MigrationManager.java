@@ -1,9 +1,8 @@
 package fr.kainovaii.obsidian.database;
 
+import fr.kainovaii.obsidian.core.ClasspathIndex;
 import fr.kainovaii.obsidian.core.Obsidian;
 import org.javalite.activejdbc.Base;
-import org.reflections.Reflections;
-import org.reflections.scanners.Scanners;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
@@ -65,8 +64,7 @@ public class MigrationManager
     {
         try {
             String basePackage = Obsidian.getBasePackage();
-            Reflections reflections = new Reflections(basePackage, Scanners.SubTypes);
-            Set<Class<? extends Migration>> migrationClasses = reflections.getSubTypesOf(Migration.class);
+            Set<Class<? extends Migration>> migrationClasses = ClasspathIndex.subTypesOf(basePackage, Migration.class);
 
             List<Migration> discoveredMigrations = new ArrayList<>();
 
@@ -1,9 +1,8 @@
 package fr.kainovaii.obsidian.database.seeder;
 
-import fr.kainovaii.obsidian.core.Obsidian;
+import fr.kainovaii.obsidian.core.ClasspathIndex;
 import fr.kainovaii.obsidian.database.seeder.annotations.Seeder;
 import fr.kainovaii.obsidian.di.Container;
-import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,8 +29,7 @@ public class SeederLoader
     {
         logger.info("Loading seeders...");
         try {
-            Reflections reflections = new Reflections(Obsidian.getBasePackage());
-            Set<Class<?>> seederClasses = reflections.getTypesAnnotatedWith(Seeder.class);
+            Set<Class<?>> seederClasses = ClasspathIndex.typesAnnotatedWith(Seeder.class);
 
             List<SeederEntry> seeders = new ArrayList<>();
 
@@ -1,10 +1,8 @@
 package fr.kainovaii.obsidian.di;
 
-import fr.kainovaii.obsidian.core.Obsidian;
+import fr.kainovaii.obsidian.core.ClasspathIndex;
 import fr.kainovaii.obsidian.di.annotations.Repository;
 import fr.kainovaii.obsidian.di.annotations.Service;
-import org.reflections.Reflections;
-import org.reflections.scanners.Scanners;
 
 import java.lang.annotation.Annotation;
 import java.util.Set;
@@ -20,20 +18,18 @@ public class ComponentScanner
      */
     public static void scanPackage()
     {
-        Reflections reflections = new Reflections(Obsidian.getBasePackage(), Scanners.TypesAnnotated);
-        scanAndRegister(reflections, Repository.class);
-        scanAndRegister(reflections, Service.class);
+        scanAndRegister(Repository.class);
+        scanAndRegister(Service.class);
     }
 
     /**
      * Scans for classes with specific annotation and registers them.
      *
-     * @param reflections Reflections instance
      * @param annotation Annotation class to scan for
      */
-    private static void scanAndRegister(Reflections reflections, Class<? extends Annotation> annotation)
+    private static void scanAndRegister(Class<? extends Annotation> annotation)
     {
-        Set<Class<?>> annotatedClasses = reflections.getTypesAnnotatedWith(annotation);
+        Set<Class<?>> annotatedClasses = ClasspathIndex.typesAnnotatedWith(annotation);
         for (Class<?> clazz : annotatedClasses) {
             System.out.println("Registering " + annotation.getSimpleName() + ": " + clazz.getSimpleName());
             Container.resolve(clazz);
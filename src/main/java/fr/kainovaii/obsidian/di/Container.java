@@ -1,5 +1,6 @@
 package fr.kainovaii.obsidian.di;
 
+import fr.kainovaii.obsidian.core.Registry;
 import fr.kainovaii.obsidian.di.annotations.Inject;
 import fr.kainovaii.obsidian.di.annotations.Repository;
 import fr.kainovaii.obsidian.di.annotations.Service;
@@ -12,6 +13,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Dependency injection container.
@@ -21,14 +23,29 @@ import java.util.Set;
 public class Container
 {
     /** Singleton instances cache */
-    private static final Map<Class<?>, Object> singletons = new HashMap<>();
+    private static final Registry<Class<?>, Object> singletons = Registry.create("singletons");
 
     /** Interface to implementation bindings */
-    private static final Map<Class<?>, Class<?>> bindings = new HashMap<>();
+    private static final Registry<Class<?>, Class<?>> bindings = Registry.create("bindings");
 
-    /** Tracks classes currently being resolved to detect circular dependencies */
+    /**
+     * Lock serializing component creation. A ReentrantLock rather than a monitor, so a virtual thread
+     * running a component constructor that blocks (I/O, JDBC) does not pin its carrier thread.
+     */
+    private static final ReentrantLock lock = new ReentrantLock();
+
+    /** Tracks classes currently being resolved to detect circular dependencies, guarded by the lock */
     private static final Set<Class<?>> resolving = new HashSet<>();
 
+    /**
+     * Instances built by the resolution in progress, published once it completes so other threads never see
+     * a component whose @Inject fields are not set yet; guarded by the lock
+     */
+    private static final Map<Class<?>, Object> constructing = new HashMap<>();
+
+    /** Nesting level of the resolution in progress, guarded by the lock */
+    private static int depth;
+
     /** Allowed component annotations */
     private static final Set<Class<? extends Annotation>> COMPONENT_ANNOTATIONS = Set.of(Service.class, Repository.class);
 
@@ -57,6 +74,7 @@ public class Container
     /**
      * Resolves a class instance with automatic dependency injection.
      * Supports constructor injection and field injection via @Inject.
+     * Existing singletons are returned without locking; creation is serialized.
      *
      * @param clazz Class to resolve
      * @param <T> Type parameter
@@ -71,8 +89,47 @@ public class Container
         Class<?> resolvedClass = bindings.getOrDefault(clazz, clazz);
 
         // Return existing singleton
-        if (singletons.containsKey(resolvedClass)) {
-            return (T) singletons.get(resolvedClass);
+        Object existing = singletons.get(resolvedClass);
+        if (existing != null) {
+            return (T) existing;
+        }
+
+        return (T) create(clazz, resolvedClass);
+    }
+
+    /**
+     * Creates and registers a singleton.
+     * Runs under the lock so two threads never build the same component. Components are published
+     * when the outermost resolution completes, after field injection; within it, a field injection cycle
+     * gets the instance under construction.
+     *
+     * @param clazz Requested class
+     * @param resolvedClass Class to instantiate after bindings
+     * @return New or concurrently created instance
+     */
+    private static Object create(Class<?> clazz, Class<?> resolvedClass)
+    {
+        lock.lock();
+        try {
+            return createLocked(clazz, resolvedClass);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Creates and registers a singleton, with the lock held.
+     */
+    private static Object createLocked(Class<?> clazz, Class<?> resolvedClass)
+    {
+        Object existing = singletons.get(resolvedClass);
+        if (existing != null) {
+            return existing;
+        }
+
+        Object pending = constructing.get(resolvedClass);
+        if (pending != null) {
+            return pending;
         }
 
         // Guard: only annotated components or manually bound classes are allowed
@@ -92,6 +149,7 @@ public class Container
         }
 
         resolving.add(resolvedClass);
+        depth++;
         try {
             Constructor<?> constructor = selectConstructor(resolvedClass);
             constructor.setAccessible(true);
@@ -103,12 +161,15 @@ public class Container
                 params[i] = resolve(paramTypes[i]);
             }
 
-            T instance = (T) constructor.newInstance(params);
-            singletons.put(resolvedClass, instance);
+            Object instance = constructor.newInstance(params);
+            constructing.put(resolvedClass, instance);
 
             // Inject @Inject-annotated fields
             injectFields(instance);
 
+            if (depth == 1) {
+                constructing.forEach(singletons::put);
+            }
             return instance;
         } catch (IllegalArgumentException e) {
             throw e;
@@ -116,6 +177,9 @@ public class Container
             throw new RuntimeException("Cannot resolve dependency: " + resolvedClass.getName(), e);
         } finally {
             resolving.remove(resolvedClass);
+            if (--depth == 0) {
+                constructing.clear();
+            }
         }
     }
 
@@ -196,8 +260,14 @@ public class Container
      */
     public static void clear()
     {
-        singletons.clear();
-        bindings.clear();
-        resolving.clear();
+        lock.lock();
+        try {
+            singletons.clear();
+            bindings.clear();
+            resolving.clear();
+            constructing.clear();
+        } finally {
+            lock.unlock();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package fr.kainovaii.obsidian.flash;
+
+import fr.kainovaii.obsidian.http.asset.Asset;
+import fr.kainovaii.obsidian.http.asset.AssetManifest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flash notification styles and script, served as fingerprinted assets.
+ * The stylesheet is built from {@link FlashConfig} and the tags referencing both assets are computed once,
+ * then again only when the configuration changes; pages inline the tags and the hidden messages only.
+ */
+public final class FlashAssets
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(FlashAssets.class);
+
+    /** Logical path of the stylesheet */
+    private static final String STYLES_PATH = "/obsidian/flash.css";
+
+    /** Logical path of the script */
+    private static final String SCRIPT_PATH = "/obsidian/flash.js";
+
+    /** Classpath resource of the base stylesheet */
+    private static final String STYLES_RESOURCE = "META-INF/resources/obsidian/flash.css";
+
+    /** Classpath resource of the script */
+    private static final String SCRIPT_RESOURCE = "META-INF/resources/obsidian/flash.js";
+
+    /** Link and script tags for the current configuration, null until built */
+    private static volatile String tags;
+
+    /**
+     * Private constructor, static utility class.
+     */
+    private FlashAssets() {}
+
+    /**
+     * Gets the tags loading the flash styles and script.
+     *
+     * @return HTML link and script tags
+     */
+    public static String tags()
+    {
+        String current = tags;
+        if (current == null) {
+            synchronized (FlashAssets.class) {
+                current = tags;
+                if (current == null) {
+                    current = build();
+                    tags = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Discards the tags so they are rebuilt with the new configuration.
+     */
+    static synchronized void invalidate() {
+        tags = null;
+    }
+
+    /**
+     * Registers the assets for the current configuration and builds their tags.
+     */
+    private static String build()
+    {
+        String styles = resource(STYLES_RESOURCE)
+                + ".flash-notification { " + FlashConfig.getPositionCSS() + " }\n"
+                + FlashConfig.getCustomCSS();
+        Asset stylesheet = AssetManifest.register(STYLES_PATH, styles.getBytes(StandardCharsets.UTF_8));
+
+        Asset script = AssetManifest.register(SCRIPT_PATH, SCRIPT_RESOURCE);
+        if (script == null) {
+            logger.error("Flash script not found in JAR");
+        }
+
+        return "<link rel=\"stylesheet\" href=\"" + stylesheet.url() + "\">\n"
+                + "<script src=\"" + (script != null ? script.url() : SCRIPT_PATH) + "\""
+                + " data-flash-duration=\"" + FlashConfig.getDuration() + "\"></script>\n";
+    }
+
+    /**
+     * Reads a classpath resource.
+     */
+    private static String resource(String name)
+    {
+        try (InputStream in = FlashAssets.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) {
+                logger.error("Flash styles not found in JAR");
+                return "";
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package fr.kainovaii.obsidian.flash;
 /**
  * Configuration for flash notification system.
  * Allows customization of appearance, duration and position.
+ * Changes rebuild the flash assets (see {@link FlashAssets}).
  */
 public class FlashConfig
 {
@@ -20,8 +21,10 @@ public class FlashConfig
      *
      * @param css Custom CSS string
      */
-    public static void setCustomCSS(String css) {
+    public static void setCustomCSS(String css)
+    {
         customCSS = css;
+        FlashAssets.invalidate();
     }
 
     /**
@@ -38,8 +41,10 @@ public class FlashConfig
      *
      * @param ms Duration in milliseconds
      */
-    public static void setDuration(int ms) {
+    public static void setDuration(int ms)
+    {
         duration = ms;
+        FlashAssets.invalidate();
     }
 
     /**
@@ -57,8 +62,10 @@ public class FlashConfig
      *
      * @param pos Position identifier
      */
-    public static void setPosition(String pos) {
+    public static void setPosition(String pos)
+    {
         position = pos;
+        FlashAssets.invalidate();
     }
 
     /**
@@ -0,0 +1,31 @@
+package fr.kainovaii.obsidian.http.asset;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Static file registered in the {@link AssetManifest}.
+ * Content is held in memory, or memory-mapped when the file lives on disk.
+ *
+ * @param path Logical path, e.g. /assets/app.css
+ * @param url Fingerprinted URL, e.g. /assets/app.3f2a9c1e0b.css
+ * @param contentType Content type
+ * @param content File content (read-only, shared: duplicate before use)
+ * @param gzip Gzipped content (the .gz sibling or compressed at load time), or null
+ * @param etag Strong entity tag
+ * @param resource Classpath resource name, or null for generated assets
+ * @param file File on disk, or null for resources inside a JAR
+ * @param lastModified Modification time of the file when registered, 0 for JAR resources
+ */
+public record Asset(String path, String url, String contentType, ByteBuffer content, ByteBuffer gzip, String etag,
+                    String resource, Path file, long lastModified)
+{
+    /**
+     * Gets the content length.
+     *
+     * @return Length in bytes
+     */
+    public int length() {
+        return content.limit();
+    }
+}
@@ -0,0 +1,162 @@
+package fr.kainovaii.obsidian.http.asset;
+
+import fr.kainovaii.obsidian.http.cache.CachedResponse;
+import fr.kainovaii.obsidian.http.compression.PrecompressedStaticHandler;
+import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves fingerprinted assets from the {@link AssetManifest}.
+ * The URL changes with the content, so responses are cacheable forever (immutable). Content comes from memory
+ * or a memory-mapped file and is handed to Jetty without copying; ETag validation, single byte ranges and the
+ * precompressed .gz variant are supported. The gzip variant has its own strong ETag, suffixed with --gz.
+ * Other requests fall through.
+ */
+public class AssetHandler extends HandlerWrapper
+{
+    /** Cache-Control of fingerprinted assets */
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    /** Single byte range: first and last byte positions, either may be empty */
+    private static final Pattern RANGE = Pattern.compile("bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)");
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException
+    {
+        String method = request.getMethod();
+        Asset asset = request.getDispatcherType() == DispatcherType.REQUEST && ("GET".equals(method) || "HEAD".equals(method))
+                ? AssetManifest.byUrl(target)
+                : null;
+
+        if (asset == null) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        baseRequest.setHandled(true);
+        serve(asset, request, response, IMMUTABLE);
+    }
+
+    /**
+     * Writes an asset, honouring If-None-Match, Range and Accept-Encoding.
+     * Asset bodies are final (precompressed, or not worth compressing), so the response bypasses on-the-fly
+     * compression; byte ranges in particular always describe the bytes sent.
+     *
+     * @param asset Asset
+     * @param request HTTP request
+     * @param response HTTP response
+     * @param cacheControl Cache-Control header value
+     * @throws IOException if the client is gone
+     */
+    public static void serve(Asset asset, HttpServletRequest request, HttpServletResponse response, String cacheControl)
+            throws IOException
+    {
+        Request base = Request.getBaseRequest(request);
+        if (base != null) {
+            base.getResponse().getHttpOutput().setInterceptor(base.getHttpChannel());
+        }
+
+        boolean gzip = asset.gzip() != null && PrecompressedStaticHandler.acceptsGzip(request.getHeader("Accept-Encoding"));
+
+        response.setContentType(asset.contentType());
+        response.setHeader("Cache-Control", cacheControl);
+        response.setHeader("ETag", gzip ? CachedResponse.gzipEtag(asset.etag()) : asset.etag());
+        response.setHeader("Accept-Ranges", "bytes");
+        if (asset.gzip() != null) response.setHeader("Vary", "Accept-Encoding");
+
+        if (CachedResponse.matches(request.getHeader("If-None-Match"), asset.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ByteBuffer body = asset.content().duplicate();
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+
+        if (range != null && (ifRange == null || ifRange.equals(asset.etag()))) {
+            long[] bounds = parseRange(range, asset.length());
+            if (bounds == null) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader("Content-Range", "bytes */" + asset.length());
+                return;
+            }
+            if (bounds.length == 2) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("ETag", asset.etag());
+                response.setHeader("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + asset.length());
+                body.position((int) bounds[0]).limit((int) bounds[1] + 1);
+                send(body.slice(), request, response);
+                return;
+            }
+        }
+
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+            body = asset.gzip().duplicate();
+        }
+        send(body, request, response);
+    }
+
+    /**
+     * Sends a body with its Content-Length.
+     */
+    private static void send(ByteBuffer body, HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        response.setContentLength(body.remaining());
+        if ("HEAD".equals(request.getMethod())) return;
+
+        ServletOutputStream out = response.getOutputStream();
+        if (out instanceof HttpOutput jetty) {
+            jetty.sendContent(body);
+        } else {
+            Channels.newChannel(out).write(body);
+        }
+    }
+
+    /**
+     * Parses a Range header for a single byte range.
+     * Invalid or multiple ranges are ignored, as RFC 9110 allows, and the whole content is sent.
+     *
+     * @param header Range header
+     * @param length Content length
+     * @return {start, end} inclusive, an empty array to send the whole content, or null if unsatisfiable
+     */
+    static long[] parseRange(String header, long length)
+    {
+        Matcher range = RANGE.matcher(header.trim());
+        if (!range.matches()) return new long[0];
+
+        String first = range.group(1);
+        String last = range.group(2);
+        if (first.isEmpty() && last.isEmpty()) return new long[0];
+
+        try {
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix == 0 || length == 0) return null;
+                return new long[] { Math.max(0, length - suffix), length - 1 };
+            }
+
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (end < start) return new long[0];
+            if (start >= length) return null;
+            return new long[] { start, Math.min(end, length - 1) };
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package fr.kainovaii.obsidian.http.asset;
+
+import fr.kainovaii.obsidian.core.EnvLoader;
+import org.eclipse.jetty.http.MimeTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Manifest of fingerprinted static assets.
+ * At startup the asset directories of the static location are scanned; each file gets a URL containing a hash
+ * of its content (app.css becomes app.3f2a9c1e0b.css), so it can be cached forever and a new deployment changes
+ * the URL. Files outside the scanned directories are registered the first time a template asks for them.
+ * In production, files on disk are memory-mapped; elsewhere they are held in memory like JAR resources, since
+ * developers rewrite them in place and a mapped file would change (or shrink and crash reads) under its old URL.
+ * Text assets are gzipped once, unless a precompressed .gz sibling is provided. Outside production, files on disk
+ * are re-fingerprinted when they change.
+ *
+ * Environment:
+ * - ASSET_DIRS: comma-separated directories of the static location scanned at startup, default assets
+ */
+public final class AssetManifest
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(AssetManifest.class);
+
+    /** Smallest text asset compressed at load time */
+    private static final int MIN_COMPRESS_SIZE = 1024;
+
+    /** Assets by logical path */
+    private static final Map<String, Asset> byPath = new ConcurrentHashMap<>();
+
+    /** Assets by fingerprinted URL */
+    private static final Map<String, Asset> byUrl = new ConcurrentHashMap<>();
+
+    /** Classpath prefix of static files */
+    private static volatile String prefix = "";
+
+    /** Whether files on disk are checked for changes */
+    private static volatile boolean watchChanges;
+
+    /**
+     * Private constructor, static utility class.
+     */
+    private AssetManifest() {}
+
+    /**
+     * Builds the manifest for a static location.
+     *
+     * @param location Classpath location of static files, as given to staticFiles.location()
+     * @param env Environment configuration
+     */
+    public static void initialize(String location, EnvLoader env)
+    {
+        String trimmed = location.replaceAll("^/+|/+$", "");
+        prefix = trimmed.isEmpty() ? "" : trimmed + "/";
+        watchChanges = !"production".equalsIgnoreCase(env.get("ENVIRONMENT", ""));
+
+        for (String dir : env.get("ASSET_DIRS", "assets").split(",")) {
+            String name = dir.trim().replaceAll("^/+|/+$", "");
+            if (!name.isEmpty()) scan(name);
+        }
+        logger.info("Asset manifest: {} assets fingerprinted", byPath.size());
+    }
+
+    /**
+     * Registers an asset stored outside the static location, such as framework scripts.
+     *
+     * @param path Logical path, e.g. /obsidian/livecomponents.js
+     * @param resource Classpath resource name
+     * @return Asset, or null if the resource does not exist
+     */
+    public static Asset register(String path, String resource)
+    {
+        Asset asset = load(path, resource);
+        if (asset != null) put(asset);
+        return asset;
+    }
+
+    /**
+     * Registers an asset generated at runtime, such as styles built from configuration.
+     *
+     * @param path Logical path, e.g. /obsidian/flash.css
+     * @param content Content
+     * @return Asset
+     */
+    public static Asset register(String path, byte[] content)
+    {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(content).asReadOnlyBuffer();
+            String contentType = contentType(path);
+            Asset asset = create(path, null, contentType, buffer, compressed(buffer, contentType), null, 0);
+            put(asset);
+            return asset;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets the fingerprinted URL of a static file.
+     *
+     * @param path Path of the file in the static location, e.g. /assets/app.css
+     * @return Fingerprinted URL, or the path unchanged if no such file exists
+     */
+    public static String url(String path)
+    {
+        Asset asset = get(path);
+        return asset != null ? asset.url() : path;
+    }
+
+    /**
+     * Gets an asset by logical path, registering it on first use.
+     *
+     * @param path Logical path
+     * @return Asset, or null if no such file exists
+     */
+    public static Asset get(String path)
+    {
+        String normalized = path.startsWith("/") ? path : "/" + path;
+        Asset asset = byPath.get(normalized);
+
+        if (asset != null && watchChanges && asset.file() != null && changed(asset)) {
+            asset = register(normalized, asset.resource());
+        }
+        if (asset == null && !normalized.contains("..")) {
+            asset = register(normalized, prefix + normalized.substring(1));
+        }
+        return asset;
+    }
+
+    /**
+     * Finds the asset served at a fingerprinted URL.
+     *
+     * @param url Request path
+     * @return Asset, or null if the URL is not fingerprinted
+     */
+    public static Asset byUrl(String url) {
+        return byUrl.get(url);
+    }
+
+    /**
+     * Scans an asset directory in every classpath root.
+     */
+    private static void scan(String dir)
+    {
+        ClassLoader loader = classLoader();
+        try {
+            Enumeration<URL> roots = loader.getResources(prefix + dir);
+            while (roots.hasMoreElements()) {
+                URL root = roots.nextElement();
+                if ("file".equals(root.getProtocol())) {
+                    scanDirectory(dir, Path.of(root.toURI()));
+                } else if ("jar".equals(root.getProtocol())) {
+                    scanJar(((JarURLConnection) root.openConnection()).getJarFile(), prefix + dir + "/");
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            logger.warn("Cannot scan asset directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Registers the files of a directory on disk.
+     */
+    private static void scanDirectory(String dir, Path root) throws IOException
+    {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile)
+                    .map(file -> root.relativize(file).toString().replace('\\', '/'))
+                    .filter(relative -> !relative.endsWith(".gz"))
+                    .forEach(relative -> register("/" + dir + "/" + relative, prefix + dir + "/" + relative));
+        }
+    }
+
+    /**
+     * Registers the files of a directory inside a JAR.
+     */
+    private static void scanJar(JarFile jar, String directory)
+    {
+        jar.stream()
+                .map(JarEntry::getName)
+                .filter(name -> name.startsWith(directory) && !name.endsWith("/") && !name.endsWith(".gz"))
+                .forEach(name -> register("/" + name.substring(prefix.length()), name));
+    }
+
+    /**
+     * Loads and fingerprints an asset.
+     *
+     * @return Asset, or null if the resource does not exist or is a directory
+     */
+    private static Asset load(String path, String resource)
+    {
+        URL url = classLoader().getResource(resource);
+        if (url == null) return null;
+
+        try {
+            Path file = "file".equals(url.getProtocol()) ? Path.of(url.toURI()) : null;
+            if (file != null && !Files.isRegularFile(file)) return null;
+
+            long lastModified = file != null ? Files.getLastModifiedTime(file).toMillis() : 0;
+            ByteBuffer content = file != null && !watchChanges ? map(file) : read(url);
+
+            String contentType = contentType(path);
+            URL gzipUrl = classLoader().getResource(resource + ".gz");
+            ByteBuffer gzip = gzipUrl != null ? read(gzipUrl) : compressed(content, contentType);
+
+            return create(path, resource, contentType, content, gzip, file, lastModified);
+
+        } catch (IOException | URISyntaxException e) {
+            logger.warn("Cannot load asset {}: {}", resource, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Fingerprints content into an asset.
+     */
+    private static Asset create(String path, String resource, String contentType, ByteBuffer content, ByteBuffer gzip,
+                                Path file, long lastModified)
+    {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(content.duplicate());
+            byte[] digest = sha.digest();
+            String fingerprint = HexFormat.of().formatHex(digest, 0, 5);
+            String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 27) + "\"";
+
+            return new Asset(path, fingerprinted(path, fingerprint), contentType, content, gzip, etag, resource, file, lastModified);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Publishes an asset, replacing a previous version.
+     */
+    private static void put(Asset asset)
+    {
+        Asset previous = byPath.put(asset.path(), asset);
+        if (previous != null && !previous.url().equals(asset.url())) byUrl.remove(previous.url());
+        byUrl.put(asset.url(), asset);
+    }
+
+    /**
+     * Inserts the fingerprint before the extension: /a/app.css becomes /a/app.3f2a9c1e0b.css.
+     */
+    static String fingerprinted(String path, String fingerprint)
+    {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot <= slash + 1) return path + "." + fingerprint;
+        return path.substring(0, dot) + "." + fingerprint + path.substring(dot);
+    }
+
+    /**
+     * Guesses the content type of a path, with a UTF-8 charset for text types.
+     */
+    private static String contentType(String path)
+    {
+        String type = MimeTypes.getDefaultMimeByExtension(path);
+        if (type == null) return "application/octet-stream";
+        if (type.startsWith("text/") || type.equals("application/javascript") || type.equals("application/json")
+                || type.equals("image/svg+xml")) {
+            return type + "; charset=utf-8";
+        }
+        return type;
+    }
+
+    /**
+     * Compresses a text asset once, so it is not compressed again on every request.
+     *
+     * @return Compressed content, or null if the asset is binary, small, or does not shrink
+     */
+    private static ByteBuffer compressed(ByteBuffer content, String contentType) throws IOException
+    {
+        if (!contentType.endsWith("charset=utf-8") || content.remaining() < MIN_COMPRESS_SIZE) return null;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.remaining() / 3);
+        try (WritableByteChannel gzip = Channels.newChannel(new GZIPOutputStream(bytes))) {
+            gzip.write(content.duplicate());
+        }
+        return bytes.size() < content.remaining() ? ByteBuffer.wrap(bytes.toByteArray()).asReadOnlyBuffer() : null;
+    }
+
+    /**
+     * Memory-maps a file.
+     */
+    private static ByteBuffer map(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Reads a resource into memory.
+     */
+    private static ByteBuffer read(URL url) throws IOException
+    {
+        try (InputStream in = url.openStream()) {
+            return ByteBuffer.wrap(in.readAllBytes()).asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * Checks if the file of an asset changed since it was registered.
+     */
+    private static boolean changed(Asset asset)
+    {
+        try {
+            return Files.getLastModifiedTime(asset.file()).toMillis() != asset.lastModified();
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Gets the class loader static files are read from.
+     */
+    private static ClassLoader classLoader()
+    {
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        return context != null ? context : AssetManifest.class.getClassLoader();
+    }
+}
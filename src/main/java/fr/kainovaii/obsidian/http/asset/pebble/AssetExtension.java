@@ -0,0 +1,27 @@
+package fr.kainovaii.obsidian.http.asset.pebble;
+
+import io.pebbletemplates.pebble.extension.AbstractExtension;
+import io.pebbletemplates.pebble.extension.Function;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pebble extension for fingerprinted asset URLs.
+ * Registers the asset() function.
+ */
+public class AssetExtension extends AbstractExtension
+{
+    /**
+     * Registers asset function.
+     *
+     * @return Map of function name to implementation
+     */
+    @Override
+    public Map<String, Function> getFunctions()
+    {
+        Map<String, Function> functions = new HashMap<>();
+        functions.put("asset", new AssetFunction());
+        return functions;
+    }
+}
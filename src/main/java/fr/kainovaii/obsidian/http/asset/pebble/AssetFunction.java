@@ -0,0 +1,45 @@
+package fr.kainovaii.obsidian.http.asset.pebble;
+
+import fr.kainovaii.obsidian.http.asset.AssetManifest;
+import io.pebbletemplates.pebble.extension.Function;
+import io.pebbletemplates.pebble.template.EvaluationContext;
+import io.pebbletemplates.pebble.template.PebbleTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pebble function for fingerprinted asset URLs.
+ * Usage: {{ asset('/assets/app.css') }}
+ */
+class AssetFunction implements Function
+{
+    /**
+     * Executes asset function to get the fingerprinted URL of a static file.
+     *
+     * @param args Function arguments containing the file path
+     * @param self Template instance
+     * @param context Evaluation context
+     * @param lineNumber Line number in template
+     * @return Fingerprinted URL, or the path unchanged if the file does not exist
+     */
+    @Override
+    public Object execute(Map<String, Object> args, PebbleTemplate self, EvaluationContext context, int lineNumber)
+    {
+        Object path = args.get("path");
+        if (path == null || path.toString().isEmpty()) {
+            return "";
+        }
+        return AssetManifest.url(path.toString());
+    }
+
+    /**
+     * Returns argument names for function.
+     *
+     * @return List containing "path"
+     */
+    @Override
+    public List<String> getArgumentNames() {
+        return List.of("path");
+    }
+}
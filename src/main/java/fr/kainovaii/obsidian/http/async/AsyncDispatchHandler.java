@@ -0,0 +1,34 @@
+package fr.kainovaii.obsidian.http.async;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Gives each request a {@link SuspendableResponse} so controllers can return asynchronous results,
+ * and tells it when the dispatch has returned. WebSocket upgrades are passed through untouched.
+ */
+public class AsyncDispatchHandler extends HandlerWrapper
+{
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException
+    {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || "websocket".equalsIgnoreCase(request.getHeader("Upgrade"))) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        SuspendableResponse suspendable = new SuspendableResponse(response);
+        try {
+            super.handle(target, baseRequest, request, suspendable);
+        } finally {
+            suspendable.dispatched();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package fr.kainovaii.obsidian.http.async;
+
+import fr.kainovaii.obsidian.core.Obsidian;
+import fr.kainovaii.obsidian.error.ErrorHandler;
+import fr.kainovaii.obsidian.http.middleware.Middleware;
+import fr.kainovaii.obsidian.http.middleware.MiddlewareManager;
+import fr.kainovaii.obsidian.http.resilience.DeadlineExceededException;
+import fr.kainovaii.obsidian.http.stream.StreamingBody;
+import fr.kainovaii.obsidian.livecomponents.session.SessionContext;
+import fr.kainovaii.obsidian.template.TemplateContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.HaltException;
+import spark.Request;
+import spark.Response;
+import spark.Session;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Completes requests whose controller returned a {@link CompletionStage} or a {@link DeferredResult}.
+ * The request is put in servlet async mode and the route returns immediately;
+ * when the result is ready, @After middleware runs and the body is written,
+ * or the error goes through the {@link ErrorHandler}.
+ *
+ * Environment:
+ * - ASYNC_TIMEOUT: time allowed to an asynchronous result before a 503, default 30s
+ * A result with a longer timeout of its own (DeferredResult, @Timeout) is given that time instead.
+ * Results failing with a TimeoutException (DeferredResult or @Timeout budget spent) also answer 503.
+ */
+public final class AsyncResult
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(AsyncResult.class);
+
+    /** Server-wide async timeout, read once */
+    private static volatile Duration timeout;
+
+    /** Extra time given to the container when a result's own timeout is used, so the result's timeout fires first */
+    private static final Duration GRACE = Duration.ofSeconds(1);
+
+    /**
+     * Private constructor, static utility class.
+     */
+    private AsyncResult() {}
+
+    /**
+     * Checks if a controller result must be completed asynchronously.
+     *
+     * @param result Controller result
+     * @return true for CompletionStage and DeferredResult
+     */
+    public static boolean isAsync(Object result) {
+        return result instanceof CompletionStage || result instanceof DeferredResult;
+    }
+
+    /**
+     * Gets the completion stage of an asynchronous result.
+     *
+     * @param result CompletionStage or DeferredResult
+     * @return Completion stage
+     */
+    public static CompletionStage<?> toStage(Object result)
+    {
+        return result instanceof DeferredResult<?> deferred
+                ? deferred.toCompletionStage()
+                : (CompletionStage<?>) result;
+    }
+
+    /**
+     * Gets the timeout an asynchronous result applies itself.
+     *
+     * @param result Controller result
+     * @return Timeout of a DeferredResult, or null
+     */
+    public static Duration timeoutOf(Object result) {
+        return result instanceof DeferredResult<?> deferred ? deferred.timeout() : null;
+    }
+
+    /**
+     * Starts asynchronous completion of a request.
+     * Falls back to waiting for the result when the response cannot be suspended.
+     *
+     * @param result CompletionStage or DeferredResult returned by the controller
+     * @param req HTTP request
+     * @param res HTTP response
+     * @param afterChain Middleware to run once the result is ready
+     * @return Value for Spark: an empty body when suspended, the result otherwise
+     * @throws Exception if the synchronous fallback fails
+     */
+    public static Object start(Object result, Request req, Response res, Middleware[] afterChain) throws Exception {
+        return start(result, timeoutOf(result), req, res, afterChain);
+    }
+
+    /**
+     * Starts asynchronous completion of a request whose result times out by itself.
+     * The container waits for the larger of that timeout and ASYNC_TIMEOUT.
+     *
+     * @param result CompletionStage or DeferredResult returned by the controller
+     * @param limit Time after which the result fails or completes by itself, null if it does not
+     * @param req HTTP request
+     * @param res HTTP response
+     * @param afterChain Middleware to run once the result is ready
+     * @return Value for Spark: an empty body when suspended, the result otherwise
+     * @throws Exception if the synchronous fallback fails
+     */
+    public static Object start(Object result, Duration limit, Request req, Response res, Middleware[] afterChain)
+            throws Exception
+    {
+        CompletionStage<?> stage = toStage(result);
+
+        if (!(res.raw() instanceof SuspendableResponse response)) {
+            Object value = awaitSynchronously(stage);
+            MiddlewareManager.execute(afterChain, req, res);
+            return value;
+        }
+
+        Duration allowed = limit != null && limit.compareTo(timeout()) > 0 ? limit.plus(GRACE) : timeout();
+        AsyncContext async = req.raw().startAsync();
+        async.setTimeout(allowed.toMillis());
+
+        AtomicBoolean done = new AtomicBoolean();
+        TemplateContext context = TemplateContext.current();
+        Session session = SessionContext.get();
+        async.addListener(new TimeoutListener(done, response, req, res, allowed));
+
+        response.suspend();
+        stage.whenComplete((value, error) -> response.resultReady(() -> {
+            if (!done.compareAndSet(false, true)) return;
+            complete(value, error, req, res, response, afterChain, context, session);
+            async.complete();
+        }));
+
+        return "";
+    }
+
+    /**
+     * Writes the result of an asynchronous request.
+     */
+    private static void complete(Object value, Throwable error, Request req, Response res,
+                                 SuspendableResponse response, Middleware[] afterChain, TemplateContext context,
+                                 Session session)
+    {
+        response.resume();
+        TemplateContext.bind(context);
+        SessionContext.set(session);
+        try {
+            if (error != null) throw unwrap(error);
+
+            MiddlewareManager.execute(afterChain, req, res);
+            if (StreamingBody.isStreaming(value)) {
+                StreamingBody.write(value, req.raw(), res.raw());
+            } else {
+                write(res, value);
+            }
+
+        } catch (HaltException e) {
+            res.status(e.statusCode());
+            write(res, e.body());
+        } catch (TimeoutException | DeadlineExceededException e) {
+            res.status(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            res.header("Retry-After", "1");
+            write(res, "Request timed out");
+        } catch (Throwable e) {
+            write(res, ErrorHandler.handle(e, req, res));
+        } finally {
+            TemplateContext.close();
+            SessionContext.clear();
+        }
+    }
+
+    /**
+     * Writes a body the way Spark serializes route results.
+     *
+     * @param res HTTP response
+     * @param value Body (String, byte[] or any object written with toString())
+     */
+    private static void write(Response res, Object value)
+    {
+        HttpServletResponse raw = res.raw();
+        if (value == null) return;
+
+        try {
+            if (raw.getContentType() == null) raw.setContentType("text/html; charset=utf-8");
+            OutputStream out = raw.getOutputStream();
+
+            if (value instanceof byte[] bytes) {
+                out.write(bytes);
+            } else {
+                out.write(value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            out.flush();
+        } catch (IOException e) {
+            logger.debug("Client gone before async response was written: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Blocks for a result when async mode is not available.
+     */
+    private static Object awaitSynchronously(CompletionStage<?> stage) throws Exception
+    {
+        try {
+            return stage.toCompletableFuture().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) throw exception;
+            throw e;
+        }
+    }
+
+    /**
+     * Unwraps CompletionException layers added by CompletableFuture.
+     */
+    private static Throwable unwrap(Throwable error)
+    {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Gets the server async timeout.
+     *
+     * @return Timeout
+     */
+    private static Duration timeout()
+    {
+        Duration current = timeout;
+        if (current == null) {
+            current = Obsidian.loadConfigAndEnv().getDuration("ASYNC_TIMEOUT", Duration.ofSeconds(30));
+            timeout = current;
+        }
+        return current;
+    }
+
+    /**
+     * Answers 503 when the result is not ready in time, and drops results of failed connections.
+     */
+    private static final class TimeoutListener implements AsyncListener
+    {
+        /** Whether the response has been written */
+        private final AtomicBoolean done;
+
+        /** Suspended response */
+        private final SuspendableResponse response;
+
+        /** HTTP request */
+        private final Request req;
+
+        /** HTTP response */
+        private final Response res;
+
+        /** Time the container waits */
+        private final Duration allowed;
+
+        TimeoutListener(AtomicBoolean done, SuspendableResponse response, Request req, Response res, Duration allowed)
+        {
+            this.done = done;
+            this.response = response;
+            this.req = req;
+            this.res = res;
+            this.allowed = allowed;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event)
+        {
+            if (!done.compareAndSet(false, true)) return;
+
+            logger.warn("Async result of {} not ready after {}", req.pathInfo(), allowed);
+            response.resume();
+            res.status(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            write(res, "Service Unavailable");
+            event.getAsyncContext().complete();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            done.set(true);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {}
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {}
+    }
+}
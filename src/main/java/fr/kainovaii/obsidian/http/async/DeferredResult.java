@@ -0,0 +1,105 @@
+package fr.kainovaii.obsidian.http.async;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a controller method completed later, from any thread.
+ * Returning it releases the request thread; the response is written when
+ * {@link #setResult(Object)} or {@link #setError(Throwable)} is called.
+ *
+ * <pre>
+ * {@literal @}GET("/report")
+ * public DeferredResult&lt;String&gt; report() {
+ *     DeferredResult&lt;String&gt; result = new DeferredResult&lt;&gt;(Duration.ofSeconds(10), "Report not ready");
+ *     reportService.onReady(html -&gt; result.setResult(html));
+ *     return result;
+ * }
+ * </pre>
+ *
+ * @param <T> Result type
+ */
+public class DeferredResult<T>
+{
+    /** Underlying completion */
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+
+    /** Time allowed before the timeout result is used, null for the server default */
+    private final Duration timeout;
+
+    /** Result written on timeout */
+    private final T timeoutResult;
+
+    /**
+     * Creates a deferred result using the server async timeout.
+     */
+    public DeferredResult() {
+        this(null, null);
+    }
+
+    /**
+     * Creates a deferred result with its own timeout.
+     *
+     * @param timeout Time allowed to complete
+     * @param timeoutResult Result written if the timeout elapses first (null for a 503 error)
+     */
+    public DeferredResult(Duration timeout, T timeoutResult)
+    {
+        this.timeout = timeout;
+        this.timeoutResult = timeoutResult;
+    }
+
+    /**
+     * Completes with a result.
+     *
+     * @param result Result value
+     * @return true if this call completed the result, false if already completed
+     */
+    public boolean setResult(T result) {
+        return future.complete(result);
+    }
+
+    /**
+     * Completes with an error, rendered by the ErrorHandler.
+     *
+     * @param error Error
+     * @return true if this call completed the result, false if already completed
+     */
+    public boolean setError(Throwable error) {
+        return future.completeExceptionally(error);
+    }
+
+    /**
+     * Checks if a result or error has been set.
+     *
+     * @return true if completed
+     */
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Gets the time allowed to complete.
+     *
+     * @return Timeout, or null for the server default
+     */
+    public Duration timeout() {
+        return timeout;
+    }
+
+    /**
+     * Gets the completion stage of this result, applying its own timeout if any.
+     *
+     * @return Completion stage
+     */
+    public CompletionStage<T> toCompletionStage()
+    {
+        if (timeout == null) return future;
+        if (timeoutResult != null) {
+            return future.completeOnTimeout(timeoutResult, timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,80 @@
+package fr.kainovaii.obsidian.http.async;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Response wrapper letting a route finish its dispatch without writing the response.
+ * While suspended the response reports itself as committed, so Spark skips serializing a body;
+ * the asynchronous completion resumes it once both the dispatch has returned and the result is ready.
+ */
+public class SuspendableResponse extends HttpServletResponseWrapper
+{
+    /** Whether Spark must leave the response alone */
+    private volatile boolean suspended;
+
+    /** Conditions left before the completion runs: dispatch returned, result ready */
+    private final AtomicInteger pending = new AtomicInteger(2);
+
+    /** Completion to run once both conditions are met */
+    private volatile Runnable completion;
+
+    /**
+     * Constructor.
+     *
+     * @param response Servlet response
+     */
+    public SuspendableResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * Suspends the response until {@link #resume()}.
+     */
+    void suspend() {
+        suspended = true;
+    }
+
+    /**
+     * Resumes normal response behaviour.
+     */
+    void resume() {
+        suspended = false;
+    }
+
+    /**
+     * Checks if the response is suspended.
+     *
+     * @return true while an asynchronous result is pending
+     */
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * Signals that the result is ready; runs the completion if the dispatch has already returned.
+     *
+     * @param completion Code writing the response
+     */
+    void resultReady(Runnable completion)
+    {
+        this.completion = completion;
+        if (pending.decrementAndGet() == 0) completion.run();
+    }
+
+    /**
+     * Signals that the request dispatch has returned; runs the completion if the result is already ready.
+     * Called by {@link AsyncDispatchHandler}.
+     */
+    void dispatched()
+    {
+        if (!suspended) return;
+        if (pending.decrementAndGet() == 0) completion.run();
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return suspended || super.isCommitted();
+    }
+}
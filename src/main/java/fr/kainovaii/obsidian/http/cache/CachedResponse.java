@@ -0,0 +1,94 @@
+package fr.kainovaii.obsidian.http.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Rendered response kept by the {@link ResponseCache}.
+ *
+ * @param status HTTP status
+ * @param contentType Content type, or null
+ * @param headers Response headers (cookies excluded)
+ * @param body Body bytes
+ * @param etag Strong entity tag of the body
+ * @param freshUntil System.nanoTime() until which the entry is fresh
+ * @param staleUntil System.nanoTime() until which the entry may be served while revalidating
+ */
+public record CachedResponse(int status, String contentType, Map<String, String> headers, byte[] body, String etag,
+                             long freshUntil, long staleUntil)
+{
+    /** Suffix marking the entity tag of a gzip-encoded representation, as Jetty does */
+    public static final String GZIP_ETAG_SUFFIX = "--gz";
+
+    /**
+     * Checks if the entry is past its TTL.
+     *
+     * @return true if stale
+     */
+    public boolean isStale() {
+        return System.nanoTime() - freshUntil > 0;
+    }
+
+    /**
+     * Computes the strong entity tag of a body.
+     *
+     * @param body Body bytes
+     * @return Quoted entity tag
+     */
+    public static String etagOf(byte[] body)
+    {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 27) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Gets the entity tag of the gzip-encoded representation of a body.
+     * A strong tag identifies one content-coding, so the compressed bytes need their own.
+     *
+     * @param etag Quoted entity tag of the identity representation
+     * @return Quoted entity tag with the gzip suffix
+     */
+    public static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + GZIP_ETAG_SUFFIX + "\"";
+    }
+
+    /**
+     * Checks if an If-None-Match header matches an entity tag or its gzip variant.
+     * Uses the weak comparison required for If-None-Match.
+     *
+     * @param ifNoneMatch Header value, may be null
+     * @param etag Quoted entity tag of the identity representation
+     * @return true if the client copy is current
+     */
+    public static boolean matches(String ifNoneMatch, String etag)
+    {
+        if (ifNoneMatch == null) return false;
+        String gzipEtag = gzipEtag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag) || tag.equals(gzipEtag)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Encodes a controller result the way Spark serializes it.
+     *
+     * @param result Controller result
+     * @return Body bytes
+     */
+    static byte[] bytesOf(Object result)
+    {
+        if (result instanceof byte[] bytes) return bytes;
+        return String.valueOf(result).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,180 @@
+package fr.kainovaii.obsidian.http.cache;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Response wrapper keeping a copy of the body written to the client, for the {@link PageCache}.
+ * The copy is dropped once it grows past the size limit.
+ * The copy holds the bytes written by the application: compression applied further out by the server does
+ * not show in it, while a Content-Encoding set by the application itself is recorded.
+ */
+final class CapturingResponse extends HttpServletResponseWrapper
+{
+    /** Copy of the body, null once the limit is exceeded */
+    private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+    /** Max size of the copy */
+    private final int limit;
+
+    /** Whether the application encoded the body itself */
+    private boolean encoded;
+
+    /** Stream handed to the application */
+    private ServletOutputStream stream;
+
+    /** Writer handed to the application */
+    private PrintWriter writer;
+
+    /**
+     * Constructor.
+     *
+     * @param response Wrapped response
+     * @param limit Max size of the copy
+     */
+    CapturingResponse(HttpServletResponse response, int limit)
+    {
+        super(response);
+        this.limit = limit;
+    }
+
+    /**
+     * Checks if the copy holds the whole body.
+     *
+     * @return false if the body exceeded the limit
+     */
+    boolean isComplete() {
+        return copy != null;
+    }
+
+    /**
+     * Gets the copy of the body.
+     *
+     * @return Body bytes
+     */
+    byte[] captured()
+    {
+        if (writer != null) writer.flush();
+        return copy.toByteArray();
+    }
+
+    /**
+     * Checks if the application set a Content-Encoding, making the copy unusable for other clients.
+     *
+     * @return true if the body was encoded by the application
+     */
+    boolean isEncoded() {
+        return encoded;
+    }
+
+    @Override
+    public void setHeader(String name, String value)
+    {
+        if ("Content-Encoding".equalsIgnoreCase(name)) encoded = value != null;
+        super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value)
+    {
+        if ("Content-Encoding".equalsIgnoreCase(name)) encoded = true;
+        super.addHeader(name, value);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException
+    {
+        if (stream == null) {
+            stream = new Tee(super.getOutputStream());
+        }
+        return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException
+    {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException
+    {
+        if (writer != null) writer.flush();
+        super.flushBuffer();
+    }
+
+    /**
+     * Records written bytes while the copy is under the limit.
+     */
+    private void record(byte[] bytes, int offset, int length)
+    {
+        if (copy == null) return;
+        if (copy.size() + length > limit) {
+            copy = null;
+            return;
+        }
+        copy.write(bytes, offset, length);
+    }
+
+    /**
+     * Output stream writing to the client and to the copy.
+     */
+    private final class Tee extends ServletOutputStream
+    {
+        /** Client stream */
+        private final ServletOutputStream out;
+
+        /**
+         * Constructor.
+         *
+         * @param out Client stream
+         */
+        Tee(ServletOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            out.write(b);
+            record(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException
+        {
+            out.write(bytes, offset, length);
+            record(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return out.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            out.setWriteListener(listener);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package fr.kainovaii.obsidian.http.cache;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Response a stale {@link RouteCache} entry is revalidated into, once the client already got the stale copy.
+ * Status, headers and content type are recorded here instead of reaching the committed response, so the
+ * fresh copy is stored with what the controller actually answered; the body is discarded, the controller
+ * result is what gets cached.
+ */
+final class DetachedResponse extends HttpServletResponseWrapper
+{
+    /** Recorded status */
+    private int status = SC_OK;
+
+    /** Recorded content type */
+    private String contentType;
+
+    /** Recorded headers, in the order they were set */
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    /** Headers copied from the stale entry and not set again yet, replaced rather than appended to */
+    private final Set<String> inherited = new HashSet<>();
+
+    /** Stream discarding what the controller writes */
+    private ServletOutputStream stream;
+
+    /** Writer discarding what the controller writes */
+    private PrintWriter writer;
+
+    /**
+     * Constructor.
+     *
+     * @param response Client response, already committed
+     * @param stale Entry being revalidated, whose content type and headers are the starting point
+     */
+    DetachedResponse(HttpServletResponse response, CachedResponse stale)
+    {
+        super(response);
+        this.contentType = stale.contentType();
+        stale.headers().forEach((name, value) -> {
+            headers.put(name, value);
+            inherited.add(name);
+        });
+    }
+
+    @Override
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int status, String message) {
+        this.status = status;
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void sendError(int status) {
+        this.status = status;
+    }
+
+    @Override
+    public void sendError(int status, String message) {
+        this.status = status;
+    }
+
+    @Override
+    public void sendRedirect(String location)
+    {
+        status = SC_FOUND;
+        setHeader("Location", location);
+    }
+
+    @Override
+    public void setContentType(String type) {
+        this.contentType = type;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public void setHeader(String name, String value)
+    {
+        String existing = name(name);
+        if (existing != null) {
+            headers.remove(existing);
+            inherited.remove(existing);
+        }
+        if (value != null) headers.put(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value)
+    {
+        String existing = name(name);
+        if (existing == null || inherited.contains(existing)) {
+            setHeader(name, value);
+        } else {
+            headers.merge(existing, value, (previous, added) -> previous + ", " + added);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, httpDate(date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, httpDate(date));
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return name(name) != null;
+    }
+
+    @Override
+    public String getHeader(String name)
+    {
+        String existing = name(name);
+        return existing != null ? headers.get(existing) : null;
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name)
+    {
+        String value = getHeader(name);
+        return value != null ? List.of(value) : List.of();
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return List.copyOf(headers.keySet());
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        // Cookies are never cached
+    }
+
+    @Override
+    public void setContentLength(int length) {}
+
+    @Override
+    public void setContentLengthLong(long length) {}
+
+    @Override
+    public boolean isCommitted() {
+        return false;
+    }
+
+    @Override
+    public void flushBuffer() {}
+
+    @Override
+    public void resetBuffer() {}
+
+    @Override
+    public void reset()
+    {
+        status = SC_OK;
+        contentType = null;
+        headers.clear();
+        inherited.clear();
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream()
+    {
+        if (stream == null) {
+            stream = new Discarding();
+        }
+        return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter()
+    {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), StandardCharsets.UTF_8));
+        }
+        return writer;
+    }
+
+    /**
+     * Finds the recorded name of a header, which is case-insensitive.
+     */
+    private String name(String name)
+    {
+        for (String existing : headers.keySet()) {
+            if (existing.equalsIgnoreCase(name)) return existing;
+        }
+        return null;
+    }
+
+    /**
+     * Formats a date header value.
+     */
+    private static String httpDate(long date) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(date).atOffset(ZoneOffset.UTC));
+    }
+
+    /**
+     * Output stream dropping every byte.
+     */
+    private static final class Discarding extends ServletOutputStream
+    {
+        @Override
+        public void write(int b) {}
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {}
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {}
+    }
+}
@@ -0,0 +1,408 @@
+package fr.kainovaii.obsidian.http.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import fr.kainovaii.obsidian.core.EnvLoader;
+import fr.kainovaii.obsidian.core.Obsidian;
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Full-page cache for anonymous traffic, served by {@link PageCacheHandler} before Spark's filters run.
+ * A page is stored when a request without session cookie gets a 200 response that sets no cookie and is
+ * marked cacheable for shared caches (see {@link #cache(Request, Response, Duration, String...)}).
+ * Entries are keyed by host, URL and the request headers named in the response Vary header, and carry
+ * surrogate-key tags so application code can purge every page showing a piece of data. The Vary headers of
+ * each URL are kept in a second, bounded cache that expires with the pages they describe.
+ *
+ * Environment:
+ * - PAGE_CACHE: enables the cache, default false
+ * - PAGE_CACHE_MAX_SIZE: total size of cached pages, default 64mb
+ * - PAGE_CACHE_MAX_ENTRY: largest page stored, default 1mb
+ */
+public final class PageCache
+{
+    /** Request attribute holding the surrogate keys of the page being rendered; never sent to clients */
+    public static final String TAGS_ATTRIBUTE = "obsidian.page-cache.tags";
+
+    /** Cookie marking a visitor with a session */
+    public static final String SESSION_COOKIE = "JSESSIONID";
+
+    /** Response headers never stored */
+    private static final List<String> EXCLUDED_HEADERS = List.of("Set-Cookie", "Set-Cookie2", "Date", "Content-Length", "Content-Type",
+            "Content-Encoding");
+
+    /** Most URLs whose Vary headers are remembered */
+    private static final int MAX_URLS = 10_000;
+
+    /** Cached page */
+    record Page(int status, String contentType, Map<String, String> headers, byte[] body, Set<String> tags,
+                long created, Duration ttl) {}
+
+    /** Vary request headers of a URL, kept as long as the page last stored for it */
+    record Variants(List<String> headers, Duration ttl) {}
+
+    /** Cached pages by key */
+    private static volatile Cache<String, Page> store;
+
+    /** Vary request headers by URL, learned from the responses */
+    private static volatile Cache<String, Variants> variants;
+
+    /** Largest page stored, in bytes */
+    private static volatile int maxEntrySize;
+
+    /**
+     * Private constructor, static utility class.
+     */
+    private PageCache() {}
+
+    /**
+     * Checks if the page cache is enabled.
+     *
+     * @return PAGE_CACHE value
+     */
+    public static boolean isEnabled() {
+        return Obsidian.loadConfigAndEnv().getBoolean("PAGE_CACHE", false);
+    }
+
+    /**
+     * Marks the response as cacheable by shared caches, this one included.
+     * Browsers still revalidate on every visit; purged pages are therefore never shown again.
+     *
+     * @param res HTTP response
+     * @param ttl Time to live in shared caches
+     */
+    public static void cache(Response res, Duration ttl) {
+        res.header("Cache-Control", "public, max-age=0, s-maxage=" + ttl.toSeconds());
+    }
+
+    /**
+     * Marks the response as cacheable by shared caches and tags the page with surrogate keys.
+     * Tags are kept in a request attribute, so they reach the cache without ever being sent to the client.
+     *
+     * @param req HTTP request
+     * @param res HTTP response
+     * @param ttl Time to live in shared caches
+     * @param tags Surrogate keys of the data shown, e.g. "product:42"
+     */
+    public static void cache(Request req, Response res, Duration ttl, String... tags)
+    {
+        cache(res, ttl);
+        if (tags.length == 0) return;
+
+        Set<String> all = new HashSet<>(List.of(tags));
+        Object previous = req.raw().getAttribute(TAGS_ATTRIBUTE);
+        if (previous instanceof Set<?> set) set.forEach(tag -> all.add(tag.toString()));
+        req.raw().setAttribute(TAGS_ATTRIBUTE, Set.copyOf(all));
+    }
+
+    /**
+     * Removes every page tagged with a surrogate key.
+     *
+     * @param tag Surrogate key, e.g. "product:42"
+     */
+    public static void purgeTag(String tag)
+    {
+        store().asMap().entrySet().removeIf(entry -> {
+            if (!entry.getValue().tags().contains(tag)) return false;
+            variants.invalidate(url(entry.getKey()));
+            return true;
+        });
+    }
+
+    /**
+     * Removes every cached variant of a path, on any host and with any query string.
+     *
+     * @param path Request path, e.g. /products/42
+     */
+    public static void purgeUrl(String path)
+    {
+        store().asMap().keySet().removeIf(key -> path(url(key)).equals(path));
+        variants.asMap().keySet().removeIf(url -> path(url).equals(path));
+    }
+
+    /**
+     * Removes every cached page.
+     */
+    public static void purgeAll()
+    {
+        store().invalidateAll();
+        variants.invalidateAll();
+    }
+
+    /**
+     * Gets the store, creating it on first use.
+     *
+     * @return Caffeine cache
+     */
+    private static Cache<String, Page> store()
+    {
+        Cache<String, Page> current = store;
+        if (current == null) {
+            synchronized (PageCache.class) {
+                current = store;
+                if (current == null) {
+                    EnvLoader env = Obsidian.loadConfigAndEnv();
+                    maxEntrySize = (int) Math.min(Integer.MAX_VALUE, env.getSize("PAGE_CACHE_MAX_ENTRY", 1024 * 1024));
+                    current = Caffeine.newBuilder()
+                            .maximumWeight(env.getSize("PAGE_CACHE_MAX_SIZE", 64L * 1024 * 1024))
+                            .weigher((String key, Page page) -> key.length() + page.body().length)
+                            .expireAfter(expiry(Page::ttl))
+                            .build();
+                    variants = Caffeine.newBuilder()
+                            .maximumSize(MAX_URLS)
+                            .expireAfter(expiry(Variants::ttl))
+                            .build();
+                    store = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Builds an expiry policy keeping each entry for its own time to live, reads included.
+     *
+     * @param ttl Time to live of an entry
+     * @param <V> Entry type
+     * @return Expiry policy
+     */
+    private static <V> Expiry<String, V> expiry(Function<V, Duration> ttl)
+    {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, V value, long currentTime) {
+                return ttl.apply(value).toNanos();
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, V value, long currentTime, long currentDuration) {
+                return ttl.apply(value).toNanos();
+            }
+
+            @Override
+            public long expireAfterRead(String key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    /**
+     * Gets the largest page stored.
+     *
+     * @return Size in bytes
+     */
+    static int maxEntrySize()
+    {
+        store();
+        return maxEntrySize;
+    }
+
+    /**
+     * Checks if a request may be answered from or stored in the cache: an anonymous GET or HEAD.
+     *
+     * @param request HTTP request
+     * @return true if anonymous and cacheable
+     */
+    static boolean accepts(HttpServletRequest request)
+    {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) return false;
+        if (request.getHeader("Upgrade") != null || request.getHeader("Authorization") != null) return false;
+
+        if (request.getCookies() != null) {
+            return Arrays.stream(request.getCookies()).noneMatch(cookie -> SESSION_COOKIE.equals(cookie.getName()));
+        }
+        return true;
+    }
+
+    /**
+     * Builds the URL part of the cache key: host, path and query string.
+     *
+     * @param request HTTP request
+     * @return URL key
+     */
+    static String url(HttpServletRequest request)
+    {
+        String query = request.getQueryString();
+        return request.getServerName() + request.getRequestURI() + (query != null ? "?" + query : "");
+    }
+
+    /**
+     * Gets the cached page for a request.
+     *
+     * @param url URL key
+     * @param request HTTP request
+     * @return Page or null on a miss
+     */
+    static Page lookup(String url, HttpServletRequest request)
+    {
+        Cache<String, Page> pages = store();
+        Variants vary = variants.getIfPresent(url);
+        if (vary == null) return null;
+        return pages.getIfPresent(key(url, vary.headers(), request));
+    }
+
+    /**
+     * Stores a rendered page if the response allows it.
+     *
+     * @param url URL key
+     * @param request HTTP request
+     * @param response Captured response
+     */
+    static void store(String url, HttpServletRequest request, CapturingResponse response)
+    {
+        if (response.getStatus() != 200 || !response.isComplete()) return;
+        if (!response.getHeaders("Set-Cookie").isEmpty() || response.isEncoded()) return;
+
+        Duration ttl = sharedMaxAge(response.getHeader("Cache-Control"));
+        if (ttl == null) return;
+
+        List<String> vary = varyHeaders(response.getHeaders("Vary"));
+        if (vary == null) return;
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (EXCLUDED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                headers.put(name, response.getHeader(name));
+            }
+        }
+
+        Cache<String, Page> pages = store();
+        variants.put(url, new Variants(vary, ttl));
+        pages.put(key(url, vary, request), new Page(200, response.getContentType(), Map.copyOf(headers),
+                response.captured(), tags(request), System.nanoTime(), ttl));
+    }
+
+    /**
+     * Gets the surrogate keys set on a request by {@link #cache(Request, Response, Duration, String...)}.
+     */
+    @SuppressWarnings("unchecked")
+    private static Set<String> tags(HttpServletRequest request)
+    {
+        Object tags = request.getAttribute(TAGS_ATTRIBUTE);
+        return tags instanceof Set<?> set ? (Set<String>) set : Set.of();
+    }
+
+    /**
+     * Writes a cached page, or 304 if its ETag matches If-None-Match.
+     *
+     * @param page Cached page
+     * @param request HTTP request
+     * @param response HTTP response
+     * @throws IOException if the client is gone
+     */
+    static void write(Page page, HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        response.setStatus(page.status());
+        page.headers().forEach(response::setHeader);
+        if (page.contentType() != null) response.setContentType(page.contentType());
+        response.setHeader("Age", String.valueOf(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - page.created())));
+
+        String etag = page.headers().get("ETag");
+        if (etag != null && CachedResponse.matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(304);
+            return;
+        }
+
+        response.setContentLength(page.body().length);
+        if (!"HEAD".equals(request.getMethod())) {
+            response.getOutputStream().write(page.body());
+        }
+    }
+
+    /**
+     * Gets the URL part of a full cache key.
+     */
+    private static String url(String key) {
+        return key.split("\n", 2)[0];
+    }
+
+    /**
+     * Gets the path of a URL key, without host and query string.
+     */
+    private static String path(String url)
+    {
+        int query = url.indexOf('?');
+        return url.substring(url.indexOf('/'), query >= 0 ? query : url.length());
+    }
+
+    /**
+     * Builds the full cache key of a request.
+     */
+    private static String key(String url, List<String> vary, HttpServletRequest request)
+    {
+        StringBuilder key = new StringBuilder(url);
+        for (String header : vary) {
+            key.append('\n').append(header).append(':').append(request.getHeader(header));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Reads the shared-cache lifetime of a response: s-maxage, or max-age when public.
+     *
+     * @param cacheControl Cache-Control header, may be null
+     * @return Lifetime, or null if the response must not be stored
+     */
+    private static Duration sharedMaxAge(String cacheControl)
+    {
+        if (cacheControl == null) return null;
+
+        Long maxAge = null;
+        Long sharedMaxAge = null;
+        boolean isPublic = false;
+
+        for (String directive : cacheControl.toLowerCase().split(",")) {
+            String value = directive.trim();
+            if (value.equals("private") || value.equals("no-store") || value.equals("no-cache")) return null;
+            if (value.equals("public")) isPublic = true;
+            try {
+                if (value.startsWith("s-maxage=")) sharedMaxAge = Long.parseLong(value.substring(9));
+                if (value.startsWith("max-age=")) maxAge = Long.parseLong(value.substring(8));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        Long seconds = sharedMaxAge != null ? sharedMaxAge : isPublic ? maxAge : null;
+        return seconds != null && seconds > 0 ? Duration.ofSeconds(seconds) : null;
+    }
+
+    /**
+     * Parses the Vary header of a response.
+     *
+     * @param values Vary header values
+     * @return Request header names, or null if the response varies on "*" or cookies
+     *         (Accept-Encoding is left out: pages are stored uncompressed and compressed again on the way out)
+     */
+    private static List<String> varyHeaders(Iterable<String> values)
+    {
+        List<String> headers = new ArrayList<>();
+        for (String value : values) {
+            for (String name : value.split(",")) {
+                String header = name.trim();
+                if (header.isEmpty() || header.equalsIgnoreCase("Accept-Encoding")) continue;
+                if (header.equals("*") || header.equalsIgnoreCase("Cookie")) return null;
+                if (headers.stream().noneMatch(header::equalsIgnoreCase)) headers.add(header);
+            }
+        }
+        headers.sort(String.CASE_INSENSITIVE_ORDER);
+        return List.copyOf(headers);
+    }
+}
@@ -0,0 +1,48 @@
+package fr.kainovaii.obsidian.http.cache;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Answers anonymous requests from the {@link PageCache} before Spark's filters, sessions and routes run,
+ * and stores the cacheable pages rendered for the others.
+ * Asynchronous responses are not stored.
+ */
+public class PageCacheHandler extends HandlerWrapper
+{
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException
+    {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !PageCache.accepts(request)) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        String url = PageCache.url(request);
+        PageCache.Page page = PageCache.lookup(url, request);
+        if (page != null) {
+            baseRequest.setHandled(true);
+            PageCache.write(page, request, response);
+            return;
+        }
+
+        if (!"GET".equals(request.getMethod())) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        CapturingResponse capture = new CapturingResponse(response, PageCache.maxEntrySize());
+        super.handle(target, baseRequest, request, capture);
+
+        if (!request.isAsyncStarted()) {
+            PageCache.store(url, request, capture);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package fr.kainovaii.obsidian.http.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import fr.kainovaii.obsidian.core.Obsidian;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared store of responses cached by {@link RouteCache}.
+ * Bounded by body size; entries expire at the end of their stale-while-revalidate window.
+ *
+ * Environment:
+ * - ROUTE_CACHE_MAX_SIZE: total size of cached bodies, default 64mb
+ */
+public final class ResponseCache
+{
+    /** Cached responses by key */
+    private static volatile Cache<String, CachedResponse> store;
+
+    /** Keys being revalidated */
+    private static final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Private constructor, static utility class.
+     */
+    private ResponseCache() {}
+
+    /**
+     * Gets the store, creating it on first use.
+     *
+     * @return Caffeine cache
+     */
+    private static Cache<String, CachedResponse> store()
+    {
+        Cache<String, CachedResponse> current = store;
+        if (current == null) {
+            synchronized (ResponseCache.class) {
+                current = store;
+                if (current == null) {
+                    long maxSize = Obsidian.loadConfigAndEnv().getSize("ROUTE_CACHE_MAX_SIZE", 64L * 1024 * 1024);
+                    current = Caffeine.newBuilder()
+                            .maximumWeight(maxSize)
+                            .weigher((String key, CachedResponse value) -> key.length() + value.body().length)
+                            .expireAfter(new Expiry<String, CachedResponse>() {
+                                @Override
+                                public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+                                    return Math.max(0, value.staleUntil() - System.nanoTime());
+                                }
+
+                                @Override
+                                public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+                                    return expireAfterCreate(key, value, currentTime);
+                                }
+
+                                @Override
+                                public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+                                    return currentDuration;
+                                }
+                            })
+                            .build();
+                    store = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Gets a cached response.
+     *
+     * @param key Cache key
+     * @return Response or null
+     */
+    static CachedResponse get(String key) {
+        return store().getIfPresent(key);
+    }
+
+    /**
+     * Stores a response.
+     *
+     * @param key Cache key
+     * @param response Response
+     */
+    static void put(String key, CachedResponse response) {
+        store().put(key, response);
+    }
+
+    /**
+     * Claims the revalidation of a key.
+     *
+     * @param key Cache key
+     * @return true if the caller must revalidate, false if another request already does
+     */
+    static boolean claimRefresh(String key) {
+        return refreshing.add(key);
+    }
+
+    /**
+     * Releases a revalidation claim.
+     *
+     * @param key Cache key
+     */
+    static void releaseRefresh(String key) {
+        refreshing.remove(key);
+    }
+
+    /**
+     * Removes the cached responses of a path, for every query string and variant.
+     *
+     * @param path Request path, e.g. /products/42
+     */
+    public static void invalidatePath(String path)
+    {
+        String prefix = path + "?";
+        store().asMap().keySet().removeIf(key -> key.substring(key.indexOf(' ') + 1).startsWith(prefix));
+    }
+
+    /**
+     * Removes every cached response.
+     */
+    public static void invalidateAll() {
+        store().invalidateAll();
+    }
+}
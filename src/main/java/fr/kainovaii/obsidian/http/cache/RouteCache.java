@@ -0,0 +1,252 @@
+package fr.kainovaii.obsidian.http.cache;
+
+import fr.kainovaii.obsidian.http.cache.annotations.Cached;
+import spark.Request;
+import spark.RequestResponseFactory;
+import spark.Response;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response cache of a single route, built from {@link Cached}.
+ * Successful GET responses with a String or byte[] body are kept in the {@link ResponseCache} with a strong ETag;
+ * later requests are answered from the cache (304 when If-None-Match matches) without invoking the controller.
+ * Once the TTL is over, the stale copy is still served during the stale-while-revalidate window while one
+ * request renders a fresh copy into a detached response, after its client got the stale copy.
+ */
+public final class RouteCache
+{
+    /** Headers never cached */
+    private static final List<String> PRIVATE_HEADERS = List.of("Set-Cookie", "Set-Cookie2", "ETag");
+
+    /** Route identifier, prefix of every key */
+    private final String route;
+
+    /** Time to live */
+    private final Duration ttl;
+
+    /** Window after the TTL during which the stale copy is served while revalidating */
+    private final Duration staleWhileRevalidate;
+
+    /** Request headers in the key */
+    private final String[] varyBy;
+
+    /** Vary header value, or null */
+    private final String vary;
+
+    /**
+     * Constructor.
+     *
+     * @param route Route identifier
+     * @param ttl Time to live
+     * @param staleWhileRevalidate Stale-while-revalidate window
+     * @param varyBy Request headers in the key
+     */
+    public RouteCache(String route, Duration ttl, Duration staleWhileRevalidate, String[] varyBy)
+    {
+        if (ttl.isNegative() || ttl.isZero() || staleWhileRevalidate.isNegative()) {
+            throw new IllegalArgumentException("Invalid cache for " + route + ": ttl=" + ttl + ", staleWhileRevalidate=" + staleWhileRevalidate);
+        }
+        this.route = route;
+        this.ttl = ttl;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.varyBy = varyBy.clone();
+        this.vary = varyBy.length > 0 ? String.join(", ", varyBy) : null;
+    }
+
+    /**
+     * Builds the cache declared by an annotation.
+     *
+     * @param route Route identifier
+     * @param annotation Cached annotation, may be null
+     * @return RouteCache or null if not annotated
+     */
+    public static RouteCache of(String route, Cached annotation)
+    {
+        if (annotation == null) return null;
+        return new RouteCache(route, Duration.ofSeconds(annotation.ttl()),
+                Duration.ofSeconds(annotation.staleWhileRevalidate()), annotation.varyBy());
+    }
+
+    /**
+     * Builds the cache key of a request.
+     *
+     * @param req HTTP request
+     * @return Key, or null if the request method is not cacheable
+     */
+    public String key(Request req)
+    {
+        String method = req.requestMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) return null;
+
+        StringBuilder key = new StringBuilder(route).append(' ').append(req.pathInfo()).append('?');
+        if (req.queryString() != null) key.append(req.queryString());
+
+        for (String header : varyBy) {
+            key.append('\n').append(header).append(':').append(req.headers(header));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Gets the cached response of a key.
+     *
+     * @param key Cache key
+     * @return Response, or null on a miss
+     */
+    public CachedResponse lookup(String key) {
+        return ResponseCache.get(key);
+    }
+
+    /**
+     * Claims the revalidation of a stale entry.
+     *
+     * @param key Cache key
+     * @return true if the caller must call {@link #refresh}, false if another request already does
+     */
+    public boolean claimRefresh(String key) {
+        return ResponseCache.claimRefresh(key);
+    }
+
+    /**
+     * Applies a cached response to the HTTP response.
+     *
+     * @param cached Cached response
+     * @param req HTTP request
+     * @param res HTTP response
+     * @return Body to send, empty for 304
+     */
+    public Object replay(CachedResponse cached, Request req, Response res)
+    {
+        HttpServletResponse raw = res.raw();
+        raw.setStatus(cached.status());
+        cached.headers().forEach(raw::setHeader);
+        if (cached.contentType() != null) raw.setContentType(cached.contentType());
+
+        return validated(cached.etag(), cached.body(), req, res);
+    }
+
+    /**
+     * Writes a cached response and commits it, so the client is served before the entry is revalidated.
+     * The response must have been prepared with {@link #replay}.
+     *
+     * @param body Body returned by {@link #replay}
+     * @param res HTTP response
+     * @throws IOException if the client is gone
+     */
+    public void send(Object body, Response res) throws IOException
+    {
+        byte[] bytes = CachedResponse.bytesOf(body);
+        HttpServletResponse raw = res.raw();
+        raw.setContentLength(bytes.length);
+
+        OutputStream out = raw.getOutputStream();
+        out.write(bytes);
+        out.flush();
+        raw.flushBuffer();
+    }
+
+    /**
+     * Stores a freshly rendered result and sets its ETag.
+     * Only 200 responses with a String or byte[] body are cached.
+     *
+     * @param key Cache key
+     * @param result Controller result
+     * @param req HTTP request
+     * @param res HTTP response
+     * @return Body to send, empty for 304
+     */
+    public Object store(String key, Object result, Request req, Response res)
+    {
+        HttpServletResponse raw = res.raw();
+        if (raw.getStatus() != 200 || !(result instanceof String || result instanceof byte[])) {
+            return result;
+        }
+
+        byte[] body = CachedResponse.bytesOf(result);
+        CachedResponse cached = entry(raw.getStatus(), raw.getContentType(), capturedHeaders(raw), body);
+        ResponseCache.put(key, cached);
+
+        return validated(cached.etag(), result, req, res);
+    }
+
+    /**
+     * Creates the response a revalidation renders into.
+     * The client response is already committed with the stale copy, so the controller gets a detached response
+     * starting from the stale entry's headers; its status and headers are recorded for {@link #refresh}.
+     *
+     * @param stale Entry being revalidated
+     * @param res Client response
+     * @return Detached response
+     */
+    public Response revalidation(CachedResponse stale, Response res) {
+        return RequestResponseFactory.create(new DetachedResponse(res.raw(), stale));
+    }
+
+    /**
+     * Stores the result of a revalidation and releases the claim.
+     * As with {@link #store}, only a 200 with a String or byte[] body replaces the entry; otherwise the stale
+     * copy stays until it expires.
+     *
+     * @param key Cache key
+     * @param result Controller result, or null if the controller failed
+     * @param rendered Response returned by {@link #revalidation}
+     */
+    public void refresh(String key, Object result, Response rendered)
+    {
+        try {
+            HttpServletResponse raw = rendered.raw();
+            if (raw.getStatus() == 200 && (result instanceof String || result instanceof byte[])) {
+                ResponseCache.put(key, entry(raw.getStatus(), raw.getContentType(), capturedHeaders(raw), CachedResponse.bytesOf(result)));
+            }
+        } finally {
+            ResponseCache.releaseRefresh(key);
+        }
+    }
+
+    /**
+     * Builds an entry expiring according to this route's TTL.
+     */
+    private CachedResponse entry(int status, String contentType, Map<String, String> headers, byte[] body)
+    {
+        long now = System.nanoTime();
+        long freshUntil = now + ttl.toNanos();
+        return new CachedResponse(status, contentType, headers, body, CachedResponse.etagOf(body),
+                freshUntil, freshUntil + staleWhileRevalidate.toNanos());
+    }
+
+    /**
+     * Sets the ETag and Vary headers and answers 304 if the client copy is current.
+     */
+    private Object validated(String etag, Object body, Request req, Response res)
+    {
+        res.header("ETag", etag);
+        if (vary != null) res.header("Vary", vary);
+
+        if (CachedResponse.matches(req.headers("If-None-Match"), etag)) {
+            res.status(304);
+            return "";
+        }
+        return body;
+    }
+
+    /**
+     * Copies the headers of a response, except cookies and validators.
+     */
+    private static Map<String, String> capturedHeaders(HttpServletResponse raw)
+    {
+        Map<String, String> captured = new LinkedHashMap<>();
+        for (String name : raw.getHeaderNames()) {
+            if (PRIVATE_HEADERS.stream().noneMatch(name::equalsIgnoreCase) && !name.equalsIgnoreCase("Content-Type")) {
+                captured.put(name, raw.getHeader(name));
+            }
+        }
+        return Map.copyOf(captured);
+    }
+}
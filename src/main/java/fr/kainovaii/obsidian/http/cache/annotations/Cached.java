@@ -0,0 +1,21 @@
+package fr.kainovaii.obsidian.http.cache.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the rendered response of a GET route, see {@link fr.kainovaii.obsidian.http.cache.RouteCache}.
+ * ttl and staleWhileRevalidate are in seconds. Entries are keyed by path, query string and the
+ * varyBy request headers: add "Cookie" to varyBy if the page depends on the visitor.
+ * A stale entry is revalidated by the first request that gets it once the TTL is over: the controller runs on
+ * that request's thread, with that request, after its client got the stale copy. Only a 200 replaces the entry.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cached {
+    long ttl();
+    String[] varyBy() default {};
+    long staleWhileRevalidate() default 0;
+}
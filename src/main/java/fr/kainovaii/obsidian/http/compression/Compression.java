@@ -0,0 +1,81 @@
+package fr.kainovaii.obsidian.http.compression;
+
+import fr.kainovaii.obsidian.core.EnvLoader;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Response compression settings.
+ * Builds the Jetty GzipHandler placed in front of the application: responses are compressed when the client
+ * accepts gzip, the body is at least the minimum size and its content type is in the allowlist.
+ * Server-sent events are never compressed, and flushes reach the client so streamed pages still arrive progressively.
+ *
+ * Environment:
+ * - SERVER_COMPRESSION: enables compression, default true
+ * - SERVER_COMPRESSION_MIN_SIZE: smallest body compressed, default 1kb
+ * - SERVER_COMPRESSION_LEVEL: deflate level 1-9, default 6
+ * - SERVER_COMPRESSION_TYPES: comma-separated content types, default text and script/data types
+ * - SERVER_PRECOMPRESSED: serves .gz siblings of static files, default true
+ */
+public final class Compression
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(Compression.class);
+
+    /** Content types compressed by default */
+    private static final String DEFAULT_TYPES = "text/html,text/plain,text/css,text/csv,text/xml,text/javascript,"
+            + "application/javascript,application/json,application/xml,application/manifest+json,image/svg+xml";
+
+    /** Content types never compressed, whatever the allowlist */
+    private static final String[] EXCLUDED_TYPES = { "text/event-stream" };
+
+    /**
+     * Private constructor, static utility class.
+     */
+    private Compression() {}
+
+    /**
+     * Creates the compression handler configured in the environment.
+     *
+     * @param env Environment configuration
+     * @return GzipHandler, or null if SERVER_COMPRESSION is disabled
+     */
+    public static GzipHandler fromEnv(EnvLoader env)
+    {
+        if (!env.getBoolean("SERVER_COMPRESSION", true)) return null;
+
+        String[] types = Arrays.stream(env.get("SERVER_COMPRESSION_TYPES", DEFAULT_TYPES).split(","))
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .toArray(String[]::new);
+
+        GzipHandler gzip = new GzipHandler();
+        gzip.setMinGzipSize((int) env.getSize("SERVER_COMPRESSION_MIN_SIZE", 1024));
+        gzip.setCompressionLevel(env.getInt("SERVER_COMPRESSION_LEVEL", 6));
+        gzip.setIncludedMimeTypes(types);
+        gzip.addExcludedMimeTypes(EXCLUDED_TYPES);
+        gzip.setIncludedMethods("GET", "POST", "PUT", "PATCH", "DELETE");
+        gzip.setExcludedAgentPatterns();
+        gzip.setSyncFlush(true);
+
+        logger.info("Response compression: gzip level {}, min size {} bytes, types {}",
+                gzip.getCompressionLevel(), gzip.getMinGzipSize(), String.join(", ", types));
+        return gzip;
+    }
+
+    /**
+     * Creates the handler serving precompressed static files.
+     *
+     * @param env Environment configuration
+     * @param location Classpath location of static files
+     * @return Handler, or null if SERVER_PRECOMPRESSED is disabled
+     */
+    public static PrecompressedStaticHandler precompressed(EnvLoader env, String location)
+    {
+        if (!env.getBoolean("SERVER_PRECOMPRESSED", true)) return null;
+        return new PrecompressedStaticHandler(location);
+    }
+}
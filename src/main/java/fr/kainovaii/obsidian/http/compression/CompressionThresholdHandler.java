@@ -0,0 +1,129 @@
+package fr.kainovaii.obsidian.http.compression;
+
+import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Response;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.server.handler.gzip.GzipHttpOutputInterceptor;
+import org.eclipse.jetty.util.Callback;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Makes the compression minimum size apply to responses without Content-Length.
+ * Spark flushes every body before closing the stream, and the gzip interceptor decides on the first flush,
+ * when the size is still unknown; this handler holds flushed output until the minimum size is reached or the
+ * response completes, so small bodies go out uncompressed with their Content-Length.
+ * Must be placed directly inside the {@link GzipHandler}.
+ */
+public class CompressionThresholdHandler extends HandlerWrapper
+{
+    /** Compression handler providing the minimum size and content types */
+    private final GzipHandler gzip;
+
+    /**
+     * Constructor.
+     *
+     * @param gzip Enclosing compression handler
+     */
+    public CompressionThresholdHandler(GzipHandler gzip) {
+        this.gzip = gzip;
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException
+    {
+        Response base = baseRequest.getResponse();
+        HttpOutput out = base.getHttpOutput();
+        if (out.getInterceptor() instanceof GzipHttpOutputInterceptor) {
+            out.setInterceptor(new Threshold(out.getInterceptor(), base));
+        }
+        super.handle(target, baseRequest, request, response);
+    }
+
+    /**
+     * Output interceptor holding small flushes back from the gzip interceptor.
+     */
+    private final class Threshold implements HttpOutput.Interceptor
+    {
+        /** Gzip interceptor */
+        private final HttpOutput.Interceptor next;
+
+        /** Response being written */
+        private final Response response;
+
+        /** Output held back, null until the first held flush */
+        private ByteBuffer held;
+
+        /** Whether output now goes straight through */
+        private boolean passThrough;
+
+        /**
+         * Constructor.
+         *
+         * @param next Gzip interceptor
+         * @param response Response being written
+         */
+        Threshold(HttpOutput.Interceptor next, Response response)
+        {
+            this.next = next;
+            this.response = response;
+        }
+
+        @Override
+        public void write(ByteBuffer content, boolean complete, Callback callback)
+        {
+            if (!passThrough && !complete) {
+                String type = response.getContentType();
+                passThrough = type != null && !gzip.isMimeTypeGzipable(type.split(";", 2)[0].trim());
+            }
+
+            int pending = (held != null ? held.position() : 0) + content.remaining();
+            if (passThrough || complete || pending >= gzip.getMinGzipSize()) {
+                passThrough = true;
+                next.write(merge(content), complete, callback);
+                return;
+            }
+
+            if (held == null) held = ByteBuffer.allocate(gzip.getMinGzipSize());
+            held.put(content);
+            callback.succeeded();
+        }
+
+        /**
+         * Prepends the held output to the content.
+         */
+        private ByteBuffer merge(ByteBuffer content)
+        {
+            if (held == null || held.position() == 0) return content;
+
+            ByteBuffer merged = ByteBuffer.allocate(held.position() + content.remaining());
+            merged.put(held.flip()).put(content).flip();
+            held = null;
+            return merged;
+        }
+
+        @Override
+        public HttpOutput.Interceptor getNextInterceptor() {
+            return next;
+        }
+
+        @Override
+        public boolean isOptimizedForDirectBuffers() {
+            return next.isOptimizedForDirectBuffers();
+        }
+
+        @Override
+        public void resetBuffer()
+        {
+            if (held != null) held.clear();
+            next.resetBuffer();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package fr.kainovaii.obsidian.http.compression;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Optional;
+
+/**
+ * Serves the precompressed sibling of a static file (app.js.gz next to app.js) to clients accepting gzip,
+ * so build-time compressed assets are sent as is instead of being compressed on every request.
+ * Requests without a .gz sibling fall through to Spark's static files and routes.
+ */
+public class PrecompressedStaticHandler extends HandlerWrapper
+{
+    /** Classpath prefix of static files */
+    private final String prefix;
+
+    /** Class loader the static files are read from */
+    private final ClassLoader classLoader;
+
+    /** Precompressed variant by request path, empty when there is none */
+    private final Cache<String, Optional<Variant>> variants = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    /**
+     * Precompressed file.
+     *
+     * @param url Location of the .gz file
+     * @param contentType Content type of the original file
+     * @param length Compressed length, -1 if unknown
+     */
+    private record Variant(URL url, String contentType, long length) {}
+
+    /**
+     * Constructor.
+     *
+     * @param location Classpath location of static files, as given to staticFiles.location()
+     */
+    public PrecompressedStaticHandler(String location)
+    {
+        String trimmed = location.replaceAll("^/+|/+$", "");
+        this.prefix = trimmed.isEmpty() ? "" : trimmed + "/";
+        ClassLoader context = Thread.currentThread().getContextClassLoader();
+        this.classLoader = context != null ? context : PrecompressedStaticHandler.class.getClassLoader();
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException
+    {
+        String method = request.getMethod();
+        if (request.getDispatcherType() != DispatcherType.REQUEST
+                || !("GET".equals(method) || "HEAD".equals(method))
+                || !acceptsGzip(request.getHeader("Accept-Encoding"))) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        Variant variant = variants.get(target, this::resolve).orElse(null);
+        if (variant == null) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        baseRequest.setHandled(true);
+        response.setContentType(variant.contentType());
+        response.setHeader("Content-Encoding", "gzip");
+        response.setHeader("Vary", "Accept-Encoding");
+        if (variant.length() >= 0) response.setContentLengthLong(variant.length());
+
+        if ("HEAD".equals(method)) return;
+        try (InputStream in = variant.url().openStream()) {
+            in.transferTo(response.getOutputStream());
+        }
+    }
+
+    /**
+     * Looks up the .gz sibling of a static file.
+     *
+     * @param path Request path
+     * @return Variant, or empty if the file or its sibling does not exist
+     */
+    private Optional<Variant> resolve(String path)
+    {
+        if (!path.startsWith("/") || path.endsWith("/") || path.contains("..") || path.endsWith(".gz")) {
+            return Optional.empty();
+        }
+
+        String name = prefix + path.substring(1);
+        URL original = classLoader.getResource(name);
+        URL compressed = classLoader.getResource(name + ".gz");
+        if (original == null || compressed == null) return Optional.empty();
+
+        String contentType = MimeTypes.getDefaultMimeByExtension(name);
+        try {
+            URLConnection connection = compressed.openConnection();
+            connection.setUseCaches(false);
+            long length = connection.getContentLengthLong();
+            return Optional.of(new Variant(compressed, contentType != null ? contentType : "application/octet-stream", length));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Checks if an Accept-Encoding header allows gzip.
+     *
+     * @param acceptEncoding Header value, may be null
+     * @return true if gzip (or *) is listed without q=0
+     */
+    public static boolean acceptsGzip(String acceptEncoding)
+    {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) continue;
+
+            boolean refused = false;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) == 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (!refused) return true;
+        }
+        return false;
+    }
+}
@@ -1,12 +1,16 @@
 package fr.kainovaii.obsidian.http.controller;
 
+import fr.kainovaii.obsidian.core.ClasspathIndex;
 import fr.kainovaii.obsidian.core.Obsidian;
 import fr.kainovaii.obsidian.security.csrf.CsrfProtection;
 import fr.kainovaii.obsidian.security.user.UserDetails;
+import fr.kainovaii.obsidian.security.user.UserDetailsCache;
 import fr.kainovaii.obsidian.security.user.UserDetailsService;
 import fr.kainovaii.obsidian.security.user.UserDetailsServiceImpl;
 import fr.kainovaii.obsidian.di.Container;
 import fr.kainovaii.obsidian.error.ErrorHandler;
+import fr.kainovaii.obsidian.template.StreamingRender;
+import fr.kainovaii.obsidian.template.TemplateContext;
 import fr.kainovaii.obsidian.template.TemplateManager;
 import org.mindrot.jbcrypt.BCrypt;
 import spark.*;
@@ -23,6 +27,9 @@ public class BaseController
     /** User details service instance */
     private static UserDetailsService userService;
 
+    /** Request attribute memoizing the logged user for the current request */
+    private static final String PRINCIPAL_ATTRIBUTE = "obsidian.principal";
+
     /**
      * Gets or initializes UserDetailsService.
      * Auto-detects implementation if not registered in container.
@@ -51,9 +58,7 @@ public class BaseController
     private static UserDetailsService autoDetectUserDetailsService()
     {
         try {
-            org.reflections.Reflections reflections = new org.reflections.Reflections(Obsidian.getBasePackage());
-
-            Set<Class<?>> annotatedClasses = reflections.getTypesAnnotatedWith(UserDetailsServiceImpl.class);
+            Set<Class<?>> annotatedClasses = ClasspathIndex.typesAnnotatedWith(UserDetailsServiceImpl.class);
 
             if (annotatedClasses.isEmpty()) {
                 throw new RuntimeException("No class annotated with @UserDetailsServiceImpl found in " + Obsidian.getBasePackage());
@@ -105,6 +110,7 @@ public class BaseController
             session.attribute("user_id", user.getId());
             session.attribute("username", user.getUsername());
             session.attribute("role", user.getRole());
+            UserDetailsCache.put(user);
             return true;
         }
         return false;
@@ -135,11 +141,25 @@ public class BaseController
 
     /**
      * Logs out user by invalidating session.
+     * Also evicts the user from the {@link UserDetailsCache}.
      *
      * @param session HTTP session
      */
-    protected static void logout(Session session) {
-        if (session != null) session.invalidate();
+    protected static void logout(Session session)
+    {
+        if (session == null) return;
+        UserDetailsCache.invalidate(session.attribute("user_id"));
+        session.invalidate();
+    }
+
+    /**
+     * Forces the next lookup of a user to hit the UserDetailsService.
+     * Call after changing a user's role, password or enabled state.
+     *
+     * @param userId User id
+     */
+    public static void invalidateUser(Object userId) {
+        UserDetailsCache.invalidate(userId);
     }
 
     /**
@@ -159,6 +179,7 @@ public class BaseController
 
     /**
      * Gets currently logged in user.
+     * Loaded at most once per request, then served from a request attribute.
      *
      * @param req HTTP request
      * @param <T> UserDetails type
@@ -173,7 +194,14 @@ public class BaseController
         Object userId = session.attribute("user_id");
         if (userId == null) return null;
 
-        return (T) getUserService().loadById(userId);
+        Principal memo = req.attribute(PRINCIPAL_ATTRIBUTE);
+        if (memo != null && memo.userId().equals(userId)) {
+            return (T) memo.user();
+        }
+
+        UserDetails user = UserDetailsCache.get(userId, id -> getUserService().loadById(id));
+        req.attribute(PRINCIPAL_ATTRIBUTE, new Principal(userId, user));
+        return (T) user;
     }
 
     /**
@@ -292,22 +320,55 @@ public class BaseController
 
     /**
      * Renders template with model data.
+     * When the route allows it, the page is streamed straight into the response (see {@link StreamingRender})
+     * and the returned String is empty; use {@link #renderToString(String, Map)} to post-process the HTML.
      *
      * @param template Template path (relative to view/)
      * @param model Template variables
-     * @return Rendered HTML
+     * @return Rendered HTML, or an empty String if it was streamed to the response
      */
     protected String render(String template, Map<String, Object> model)
     {
-        Map<String, Object> merged = new HashMap<>(TemplateManager.getGlobals());
-        if (model != null) merged.putAll(model);
+        TemplateContext context = TemplateContext.current();
+        Request req = context != null ? context.request() : null;
+        Response res = context != null ? context.response() : null;
 
         try {
-            return TemplateManager.get().render("view/" + template, merged);
+            Map<String, Object> variables = TemplateContext.model(model);
+            if (req != null && StreamingRender.render("view/" + template, variables, req, res)) {
+                return "";
+            }
+            return TemplateManager.get().render("view/" + template, variables);
         } catch (Exception exception) {
-            Request req = (Request) merged.get("request");
-            Response res = (Response) merged.get("response");
             return ErrorHandler.handle(exception, req, res);
         }
     }
+
+    /**
+     * Renders template with model data into a String, never streaming it.
+     *
+     * @param template Template path (relative to view/)
+     * @param model Template variables
+     * @return Rendered HTML
+     */
+    protected String renderToString(String template, Map<String, Object> model)
+    {
+        try {
+            return TemplateManager.get().render("view/" + template, TemplateContext.model(model));
+        } catch (Exception exception) {
+            TemplateContext context = TemplateContext.current();
+            Request req = context != null ? context.request() : null;
+            Response res = context != null ? context.response() : null;
+            return ErrorHandler.handle(exception, req, res);
+        }
+    }
+
+    /**
+     * Logged user resolved for a request, keyed by the session user id
+     * so a login or logout during the request is not masked.
+     *
+     * @param userId Session user id
+     * @param user Loaded user (may be null if the id no longer exists)
+     */
+    private record Principal(Object userId, UserDetails user) {}
 }
\ No newline at end of file
@@ -1,24 +1,28 @@
 package fr.kainovaii.obsidian.http.controller;
 
-import fr.kainovaii.obsidian.core.Obsidian;
+import fr.kainovaii.obsidian.core.ClasspathIndex;
 import fr.kainovaii.obsidian.http.controller.annotations.Controller;
 import fr.kainovaii.obsidian.http.controller.annotations.GlobalAdvice;
-import fr.kainovaii.obsidian.security.role.RoleChecker;
 import fr.kainovaii.obsidian.routing.RouteLoader;
 import fr.kainovaii.obsidian.realtime.sse.SseLoader;
-import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import spark.HaltException;
 import spark.Request;
 import spark.Response;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import static spark.Spark.before;
 
 /**
  * Controller discovery and registration system.
@@ -29,13 +33,15 @@ public class ControllerLoader
     /** Logger instance */
     private static final Logger logger = LoggerFactory.getLogger(ControllerLoader.class);
 
+    /** Global advices discovered at startup, in priority order */
+    private static volatile List<AdviceEntry> advices = List.of();
+
     /**
      * Loads and registers all controllers in application.
      * Discovers @Controller classes, registers routes and SSE endpoints.
      */
     public static void loadControllers()
     {
-        before("/*", RoleChecker::checkAccess);
         List<Object> controllers = discoverControllers();
         RouteLoader.registerRoutes(controllers);
         SseLoader.registerSseRoutes(controllers);
@@ -50,8 +56,7 @@ public class ControllerLoader
      */
     private static List<Object> discoverControllers()
     {
-        Reflections reflections = new Reflections(Obsidian.getBasePackage());
-        Set<Class<?>> controllerClasses = reflections.getTypesAnnotatedWith(Controller.class);
+        Set<Class<?>> controllerClasses = ClasspathIndex.typesAnnotatedWith(Controller.class);
 
         return controllerClasses.stream()
                 .map(ControllerLoader::instantiateController)
@@ -60,39 +65,91 @@ public class ControllerLoader
     }
 
     /**
-     * Loads and executes @GlobalAdvice annotated classes.
-     * Calls applyGlobals() method on each advice class.
+     * Discovers @GlobalAdvice annotated classes and compiles their applyGlobals method.
+     * Must be called once at startup, before the first request.
+     */
+    public static void loadAdvices()
+    {
+        Set<Class<?>> adviceClasses = ClasspathIndex.typesAnnotatedWith(GlobalAdvice.class);
+
+        List<AdviceEntry> entries = new ArrayList<>();
+        for (Class<?> adviceClass : adviceClasses) {
+            AdviceEntry entry = compileAdvice(adviceClass);
+            if (entry != null) entries.add(entry);
+        }
+
+        // Sort by priority (lower first)
+        entries.sort(Comparator.comparingInt(AdviceEntry::priority));
+        advices = List.copyOf(entries);
+
+        logger.info("Loaded {} global advice(s)", entries.size());
+    }
+
+    /**
+     * Executes the precompiled @GlobalAdvice chain for the current request.
      *
      * @param req HTTP request
      * @param res HTTP response
      */
-    public static void loadAdvicesControllers(Request req, Response res)
+    public static void applyAdvices(Request req, Response res)
+    {
+        List<AdviceEntry> chain = advices;
+        if (chain.isEmpty()) return;
+
+        String path = req.pathInfo();
+        for (AdviceEntry advice : chain) {
+            if (!advice.matches(path)) continue;
+            try {
+                advice.handle().invokeExact(req, res);
+            } catch (HaltException e) {
+                throw e;
+            } catch (Throwable e) {
+                logger.error("Error calling applyGlobals on {}: {}", advice.name(), e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Compiles the applyGlobals(Request, Response) method of an advice class.
+     * Static methods are called directly, instance methods on a single shared instance.
+     *
+     * @param adviceClass Advice class
+     * @return Compiled advice or null if the class has no usable applyGlobals method
+     */
+    private static AdviceEntry compileAdvice(Class<?> adviceClass)
     {
         try {
-            Reflections reflections = new Reflections(Obsidian.getBasePackage());
-            Set<Class<?>> adviceClasses = reflections.getTypesAnnotatedWith(GlobalAdvice.class);
-
-            for (Class<?> adviceClass : adviceClasses) {
-                try {
-                    Method applyGlobals = adviceClass.getMethod("applyGlobals", Request.class, Response.class);
-                    applyGlobals.invoke(null, req, res);
-                } catch (NoSuchMethodException e) {
-                    logger.info("@GlobalAdvice class {} doesn't have applyGlobals(Request, Response) method", adviceClass.getName());
-                } catch (java.lang.reflect.InvocationTargetException e) {
-                    Throwable cause = e.getCause();
-                    if (cause instanceof spark.HaltException) {
-                        throw (spark.HaltException) cause;
-                    }
-                    logger.error("Error calling applyGlobals on {}: {}", adviceClass.getName(), cause != null ? cause.getMessage() : "unknown", cause);
-                } catch (Exception e) {
-                    logger.error("Error calling applyGlobals on {}: {}", adviceClass.getName(), e.getMessage(), e);
+            Method applyGlobals = adviceClass.getMethod("applyGlobals", Request.class, Response.class);
+            applyGlobals.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(applyGlobals);
+            if (!Modifier.isStatic(applyGlobals.getModifiers())) {
+                handle = handle.bindTo(adviceClass.getDeclaredConstructor().newInstance());
+            }
+            // invokeExact needs the call site type: a returned value is dropped
+            handle = handle.asType(MethodType.methodType(void.class, Request.class, Response.class));
+
+            GlobalAdvice annotation = adviceClass.getAnnotation(GlobalAdvice.class);
+            List<String> exact = new ArrayList<>();
+            List<String> prefixes = new ArrayList<>();
+            boolean all = annotation.value().length == 0;
+            for (String filter : annotation.value()) {
+                if (filter.equals("*") || filter.equals("/*")) {
+                    all = true;
+                } else if (filter.endsWith("/*")) {
+                    prefixes.add(filter.substring(0, filter.length() - 2));
+                } else {
+                    exact.add(filter);
                 }
             }
-        } catch (spark.HaltException e) {
-            throw e;
+
+            return new AdviceEntry(adviceClass.getName(), handle, all,
+                    exact.toArray(new String[0]), prefixes.toArray(new String[0]), annotation.priority());
+        } catch (NoSuchMethodException e) {
+            logger.info("@GlobalAdvice class {} doesn't have applyGlobals(Request, Response) method", adviceClass.getName());
         } catch (Exception e) {
-            logger.error("Error scanning for @GlobalAdvice: {}", e.getMessage(), e);
+            logger.error("Failed to load @GlobalAdvice {}: {}", adviceClass.getName(), e.getMessage(), e);
         }
+        return null;
     }
 
     /**
@@ -110,4 +167,28 @@ public class ControllerLoader
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Precompiled @GlobalAdvice with its path filters.
+     */
+    private record AdviceEntry(String name, MethodHandle handle, boolean all, String[] exactPaths, String[] prefixes, int priority)
+    {
+        /**
+         * Checks whether the advice applies to a request path.
+         *
+         * @param path Request path
+         * @return true if the advice must run
+         */
+        boolean matches(String path)
+        {
+            if (all) return true;
+            for (String exact : exactPaths) {
+                if (exact.equals(path)) return true;
+            }
+            for (String prefix : prefixes) {
+                if (path.equals(prefix) || path.startsWith(prefix + "/")) return true;
+            }
+            return false;
+        }
+    }
+}
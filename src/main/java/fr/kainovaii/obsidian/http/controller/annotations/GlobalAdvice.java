@@ -5,8 +5,28 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Marks a class whose applyGlobals(Request, Response) method runs before every matching request.
+ * Advice classes are discovered once at startup.
+ */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
-public @interface GlobalAdvice {
+public @interface GlobalAdvice
+{
+    /**
+     * Path filters the advice applies to.
+     * Supports exact paths ("/dashboard") and prefixes ("/admin/*").
+     * Empty means every request.
+     *
+     * @return Path filters
+     */
+    String[] value() default {};
 
+    /**
+     * Advice priority (lower values execute first).
+     * Default is 100.
+     *
+     * @return Priority value
+     */
+    int priority() default 100;
 }
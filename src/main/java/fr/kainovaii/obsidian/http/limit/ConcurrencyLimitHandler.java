@@ -0,0 +1,138 @@
+package fr.kainovaii.obsidian.http.limit;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Request entry point guarded by a {@link ConcurrencyLimiter}.
+ * Runs in front of Spark, so a shed request costs no session, filter or route work:
+ * it is answered 503 with Retry-After right away.
+ * Latency is measured until the response completes, including asynchronous results.
+ * WebSocket upgrades and SSE streams are long-lived and bypass the limiter.
+ */
+public class ConcurrencyLimitHandler extends HandlerWrapper
+{
+    /** Limiter */
+    private final ConcurrencyLimiter limiter;
+
+    /** Request classification */
+    private final Function<HttpServletRequest, Priority> classifier;
+
+    /** Retry-After header value in seconds */
+    private final String retryAfter;
+
+    /**
+     * Constructor using the default classification, see {@link Priority#classify(HttpServletRequest)}.
+     *
+     * @param limiter Limiter
+     */
+    public ConcurrencyLimitHandler(ConcurrencyLimiter limiter) {
+        this(limiter, Priority::classify);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param limiter Limiter
+     * @param classifier Request classification
+     */
+    public ConcurrencyLimitHandler(ConcurrencyLimiter limiter, Function<HttpServletRequest, Priority> classifier)
+    {
+        this.limiter = limiter;
+        this.classifier = classifier;
+        this.retryAfter = String.valueOf(Math.max(1, limiter.getRetryAfter().toSeconds()));
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException
+    {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || isLongLived(request)) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+
+        if (!limiter.tryAcquire(classifier.apply(request))) {
+            reject(baseRequest, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            super.handle(target, baseRequest, request, response);
+            if (request.isAsyncStarted()) {
+                try {
+                    request.getAsyncContext().addListener(new Release(start));
+                    async = true;
+                } catch (IllegalStateException alreadyCompleted) {
+                    // completed during the dispatch, released below
+                }
+            }
+        } finally {
+            if (!async) limiter.release(start);
+        }
+    }
+
+    /**
+     * Answers a shed request.
+     */
+    private void reject(Request baseRequest, HttpServletResponse response) throws IOException
+    {
+        baseRequest.setHandled(true);
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", retryAfter);
+        response.setContentType("text/plain; charset=utf-8");
+        response.getOutputStream().write("Service Unavailable".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks if a request opens a long-lived stream.
+     *
+     * @param request Servlet request
+     * @return true for WebSocket upgrades and SSE
+     */
+    private static boolean isLongLived(HttpServletRequest request)
+    {
+        String accept = request.getHeader("Accept");
+        return "websocket".equalsIgnoreCase(request.getHeader("Upgrade"))
+                || accept != null && accept.contains("text/event-stream");
+    }
+
+    /**
+     * Releases the limiter when an asynchronous request ends.
+     */
+    private final class Release implements AsyncListener
+    {
+        /** Admission time */
+        private final long start;
+
+        Release(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limiter.release(start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {}
+
+        @Override
+        public void onError(AsyncEvent event) {}
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {}
+    }
+}
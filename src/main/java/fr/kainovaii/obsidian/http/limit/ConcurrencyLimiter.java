@@ -0,0 +1,276 @@
+package fr.kainovaii.obsidian.http.limit;
+
+import fr.kainovaii.obsidian.core.EnvLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adaptive limit on the number of requests handled at once.
+ * Latency is averaged over short windows and compared with a baseline (the latency seen without queueing):
+ * when it rises above baseline * tolerance the limit shrinks by the ratio (gradient),
+ * otherwise it grows by sqrt(limit) as long as the current limit is actually being used.
+ * Requests above the limit of their {@link Priority} class are rejected instead of queued.
+ *
+ * Environment:
+ * - SERVER_LIMITER: enable the limiter, default false
+ * - SERVER_LIMIT_INITIAL / SERVER_LIMIT_MIN / SERVER_LIMIT_MAX: limit bounds, default 20 / 4 / 1000
+ * - SERVER_LIMIT_TOLERANCE: latency ratio over baseline tolerated before shrinking, default 2.0
+ * - SERVER_LIMIT_WINDOW: measurement window, default 250ms
+ * - SERVER_LIMIT_RETRY_AFTER: Retry-After sent with 503 responses, default 1s
+ */
+public class ConcurrencyLimiter implements ConcurrencyLimiterMXBean
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    /** JMX object name */
+    public static final String OBJECT_NAME = "fr.kainovaii.obsidian:type=ConcurrencyLimiter";
+
+    /** Samples needed before a window updates the limit */
+    private static final int MIN_SAMPLES = 10;
+
+    /** Weight of a window average when the baseline drifts upwards */
+    private static final double BASELINE_DRIFT = 0.05;
+
+    /** Lower bound */
+    private final int minLimit;
+
+    /** Upper bound */
+    private final int maxLimit;
+
+    /** Latency ratio tolerated before the limit shrinks */
+    private final double tolerance;
+
+    /** Measurement window in nanoseconds */
+    private final long windowNanos;
+
+    /** Retry-After advertised to rejected clients */
+    private final Duration retryAfter;
+
+    /** Current limit, fractional to allow slow growth */
+    private volatile double limit;
+
+    /** Requests in flight */
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /** Highest in-flight count of the current window */
+    private final AtomicInteger windowPeak = new AtomicInteger();
+
+    /** Latency sum of the current window */
+    private final LongAdder windowLatency = new LongAdder();
+
+    /** Sample count of the current window */
+    private final LongAdder windowSamples = new LongAdder();
+
+    /** End of the current window */
+    private volatile long windowEnd;
+
+    /** Guards the window rollover */
+    private final AtomicBoolean updating = new AtomicBoolean();
+
+    /** Baseline latency in nanoseconds, 0 until measured */
+    private volatile double baseline;
+
+    /** Average latency of the last window in nanoseconds */
+    private volatile double recent;
+
+    /** Admitted requests */
+    private final LongAdder accepted = new LongAdder();
+
+    /** Rejected requests */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param initialLimit Starting limit
+     * @param minLimit Lower bound
+     * @param maxLimit Upper bound
+     * @param tolerance Latency ratio over baseline tolerated before shrinking (> 1)
+     * @param window Measurement window
+     * @param retryAfter Retry-After sent to rejected clients
+     */
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, Duration window, Duration retryAfter)
+    {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limits: " + minLimit + " <= " + initialLimit + " <= " + maxLimit);
+        }
+        if (tolerance <= 1.0) throw new IllegalArgumentException("Tolerance must be greater than 1: " + tolerance);
+
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.windowNanos = window.toNanos();
+        this.retryAfter = retryAfter;
+        this.windowEnd = System.nanoTime() + windowNanos;
+    }
+
+    /**
+     * Creates the limiter configured in the environment and registers its MXBean.
+     *
+     * @param env Environment configuration
+     * @return Limiter, or null if SERVER_LIMITER is not enabled
+     */
+    public static ConcurrencyLimiter fromEnv(EnvLoader env)
+    {
+        if (!env.getBoolean("SERVER_LIMITER", false)) return null;
+
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(
+                env.getInt("SERVER_LIMIT_INITIAL", 20),
+                env.getInt("SERVER_LIMIT_MIN", 4),
+                env.getInt("SERVER_LIMIT_MAX", 1000),
+                Double.parseDouble(env.get("SERVER_LIMIT_TOLERANCE", "2.0").trim()),
+                env.getDuration("SERVER_LIMIT_WINDOW", Duration.ofMillis(250)),
+                env.getDuration("SERVER_LIMIT_RETRY_AFTER", Duration.ofSeconds(1))
+        );
+        limiter.register();
+
+        logger.info("Concurrency limiter enabled: limit {} ({}..{}), tolerance {}",
+                limiter.getLimit(), limiter.minLimit, limiter.maxLimit, limiter.tolerance);
+        return limiter;
+    }
+
+    /**
+     * Registers the MXBean, replacing a previous registration.
+     */
+    private void register()
+    {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            var server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            logger.warn("Cannot register limiter MXBean: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tries to admit a request.
+     *
+     * @param priority Request priority class
+     * @return true if admitted; {@link #release(long)} must then be called once
+     */
+    public boolean tryAcquire(Priority priority)
+    {
+        int allowed = priority.allowed((int) limit);
+        while (true) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                rejected.increment();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                windowPeak.accumulateAndGet(current + 1, Math::max);
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases an admitted request and records its latency.
+     *
+     * @param startNanos System.nanoTime() when the request was admitted
+     */
+    public void release(long startNanos)
+    {
+        long now = System.nanoTime();
+        inflight.decrementAndGet();
+        windowLatency.add(now - startNanos);
+        windowSamples.increment();
+
+        if (now - windowEnd >= 0 && updating.compareAndSet(false, true)) {
+            try {
+                update(now);
+            } finally {
+                updating.set(false);
+            }
+        }
+    }
+
+    /**
+     * Closes the measurement window and adjusts the limit.
+     *
+     * @param now Current time in nanoseconds
+     */
+    private void update(long now)
+    {
+        long samples = windowSamples.sum();
+        if (samples < MIN_SAMPLES) return;
+
+        double average = (double) windowLatency.sumThenReset() / windowSamples.sumThenReset();
+        int peak = windowPeak.getAndSet(inflight.get());
+        windowEnd = now + windowNanos;
+        recent = average;
+
+        double base = baseline;
+        base = (base == 0 || average < base) ? average : base + (average - base) * BASELINE_DRIFT;
+        baseline = base;
+
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * base / average));
+        double next = current;
+
+        if (gradient < 1.0) {
+            next = current * gradient;
+        } else if (peak >= current / 2) {
+            next = current + Math.sqrt(current);
+        }
+
+        next = Math.max(minLimit, Math.min(maxLimit, next));
+        if ((int) next != (int) current) {
+            logger.debug("Concurrency limit {} -> {} (latency {}ms, baseline {}ms, peak {})",
+                    (int) current, (int) next, Math.round(average / 1e6), Math.round(base / 1e6), peak);
+        }
+        limit = next;
+    }
+
+    /**
+     * Gets the Retry-After advertised to rejected clients.
+     *
+     * @return Retry delay
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    @Override
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    @Override
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public double getBaselineLatencyMillis() {
+        return baseline / 1e6;
+    }
+
+    @Override
+    public double getRecentLatencyMillis() {
+        return recent / 1e6;
+    }
+}
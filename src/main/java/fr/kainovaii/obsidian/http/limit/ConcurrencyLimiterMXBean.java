@@ -0,0 +1,49 @@
+package fr.kainovaii.obsidian.http.limit;
+
+/**
+ * JMX view of the {@link ConcurrencyLimiter}, registered as {@value ConcurrencyLimiter#OBJECT_NAME}.
+ */
+public interface ConcurrencyLimiterMXBean
+{
+    /**
+     * Gets the current concurrency limit.
+     *
+     * @return Limit
+     */
+    int getLimit();
+
+    /**
+     * Gets the number of requests in flight.
+     *
+     * @return In-flight requests
+     */
+    int getInflight();
+
+    /**
+     * Gets the number of requests admitted since startup.
+     *
+     * @return Admitted requests
+     */
+    long getAccepted();
+
+    /**
+     * Gets the number of requests rejected with 503 since startup.
+     *
+     * @return Rejected requests
+     */
+    long getRejected();
+
+    /**
+     * Gets the latency observed without queueing, the baseline of the limit.
+     *
+     * @return Baseline latency in milliseconds
+     */
+    double getBaselineLatencyMillis();
+
+    /**
+     * Gets the average latency of the last measurement window.
+     *
+     * @return Recent latency in milliseconds
+     */
+    double getRecentLatencyMillis();
+}
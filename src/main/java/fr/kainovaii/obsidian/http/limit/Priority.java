@@ -0,0 +1,56 @@
+package fr.kainovaii.obsidian.http.limit;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Request priority class used by the {@link ConcurrencyLimiter}.
+ * Each class may use a share of the current limit, so lower classes are shed first
+ * and keep headroom for the requests a user is actively waiting on.
+ */
+public enum Priority
+{
+    /** Framework assets pages cannot work without (livecomponents.js), never below the full limit */
+    CRITICAL(1.0),
+
+    /** LiveComponent actions: a user clicked something on an already loaded page */
+    INTERACTIVE(0.9),
+
+    /** Page loads and other routes */
+    NORMAL(0.75);
+
+    /** Share of the limit this class may fill */
+    private final double share;
+
+    /**
+     * Constructor.
+     *
+     * @param share Share of the limit this class may fill
+     */
+    Priority(double share) {
+        this.share = share;
+    }
+
+    /**
+     * Gets the concurrency this class may reach under a given limit.
+     *
+     * @param limit Current limit
+     * @return Admitted concurrency, at least 1
+     */
+    public int allowed(int limit) {
+        return Math.max(1, (int) (limit * share));
+    }
+
+    /**
+     * Default classification of framework requests.
+     *
+     * @param request Servlet request
+     * @return Priority class
+     */
+    public static Priority classify(HttpServletRequest request)
+    {
+        String path = request.getRequestURI();
+        if (path.startsWith("/obsidian/livecomponents.js")) return CRITICAL;
+        if (path.equals("/obsidian/components") && "POST".equals(request.getMethod())) return INTERACTIVE;
+        return NORMAL;
+    }
+}
@@ -1,13 +1,11 @@
 package fr.kainovaii.obsidian.http.middleware;
 
+import fr.kainovaii.obsidian.core.Registry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.Request;
 import spark.Response;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Middleware execution manager.
  * Handles instantiation and execution of middleware classes for routes.
@@ -18,7 +16,7 @@ public class MiddlewareManager
     private static final Logger logger = LoggerFactory.getLogger(MiddlewareManager.class);
 
     /** Singleton instances of middleware classes */
-    private static final Map<Class<? extends Middleware>, Middleware> instances = new HashMap<>();
+    private static final Registry<Class<? extends Middleware>, Middleware> instances = Registry.create("middlewares");
 
     /**
      * Executes before-route middleware chain.
@@ -54,6 +52,37 @@ public class MiddlewareManager
         }
     }
 
+    /**
+     * Resolves middleware classes to their singleton instances.
+     * Used to precompile route middleware chains at registration time.
+     *
+     * @param middlewareClasses Array of middleware classes
+     * @return Middleware instances in declaration order
+     */
+    public static Middleware[] resolveChain(Class<? extends Middleware>[] middlewareClasses)
+    {
+        Middleware[] chain = new Middleware[middlewareClasses.length];
+        for (int i = 0; i < middlewareClasses.length; i++) {
+            chain[i] = getInstance(middlewareClasses[i]);
+        }
+        return chain;
+    }
+
+    /**
+     * Executes a precompiled middleware chain.
+     *
+     * @param chain Middleware instances
+     * @param req HTTP request
+     * @param res HTTP response
+     * @throws Exception if any middleware throws an exception
+     */
+    public static void execute(Middleware[] chain, Request req, Response res) throws Exception
+    {
+        for (Middleware middleware : chain) {
+            middleware.handle(req, res);
+        }
+    }
+
     /**
      * Gets or creates singleton instance of middleware.
      *
@@ -0,0 +1,16 @@
+package fr.kainovaii.obsidian.http.resilience;
+
+/**
+ * Thrown when a route's bulkhead has no free slot within its wait limit.
+ */
+public class BulkheadFullException extends RuntimeException
+{
+    /**
+     * Constructor.
+     *
+     * @param message Error message
+     */
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,123 @@
+package fr.kainovaii.obsidian.http.resilience;
+
+import java.time.Duration;
+
+/**
+ * Point in time after which the work of a request is no longer useful.
+ * Bound to the handling thread by routes annotated with @Timeout;
+ * handler code may read it to bound its own waits, and DB applies it as a JDBC query timeout.
+ *
+ * <pre>
+ * Deadline deadline = Deadline.current();
+ * if (deadline != null) client.setTimeout(deadline.remaining());
+ * </pre>
+ */
+public final class Deadline
+{
+    /** Deadline of the request handled by the current thread */
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+
+    /** Expiry in System.nanoTime() units */
+    private final long expiresAt;
+
+    /** Budget the deadline was created with */
+    private final Duration budget;
+
+    /**
+     * Constructor.
+     *
+     * @param expiresAt Expiry in System.nanoTime() units
+     * @param budget Budget the deadline was created with
+     */
+    private Deadline(long expiresAt, Duration budget)
+    {
+        this.expiresAt = expiresAt;
+        this.budget = budget;
+    }
+
+    /**
+     * Creates a deadline from now.
+     *
+     * @param budget Time budget
+     * @return Deadline
+     */
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos(), budget);
+    }
+
+    /**
+     * Gets the deadline bound to the current thread.
+     *
+     * @return Deadline or null if the request has none
+     */
+    public static Deadline current() {
+        return current.get();
+    }
+
+    /**
+     * Binds a deadline to the current thread.
+     *
+     * @param deadline Deadline, or null to unbind
+     * @return Previously bound deadline, to restore afterwards
+     */
+    public static Deadline bind(Deadline deadline)
+    {
+        Deadline previous = current.get();
+        if (deadline == null) {
+            current.remove();
+        } else {
+            current.set(deadline);
+        }
+        return previous;
+    }
+
+    /**
+     * Throws if the deadline bound to the current thread has passed.
+     *
+     * @throws DeadlineExceededException if expired
+     */
+    public static void checkCurrent()
+    {
+        Deadline deadline = current.get();
+        if (deadline != null) deadline.check();
+    }
+
+    /**
+     * Gets the time left.
+     *
+     * @return Remaining time, zero or negative once expired
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(expiresAt - System.nanoTime());
+    }
+
+    /**
+     * Checks if the deadline has passed.
+     *
+     * @return true once expired
+     */
+    public boolean isExpired() {
+        return expiresAt - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Throws if the deadline has passed.
+     *
+     * @throws DeadlineExceededException if expired
+     */
+    public void check()
+    {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Deadline of " + budget.toMillis() + "ms exceeded");
+        }
+    }
+
+    /**
+     * Gets the budget the deadline was created with.
+     *
+     * @return Budget
+     */
+    public Duration budget() {
+        return budget;
+    }
+}
@@ -0,0 +1,16 @@
+package fr.kainovaii.obsidian.http.resilience;
+
+/**
+ * Thrown when work is attempted after the request deadline has passed.
+ */
+public class DeadlineExceededException extends RuntimeException
+{
+    /**
+     * Constructor.
+     *
+     * @param message Error message
+     */
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,94 @@
+package fr.kainovaii.obsidian.http.resilience;
+
+import fr.kainovaii.obsidian.http.resilience.annotations.Bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency compartment of a single route, built from {@link Bulkhead}.
+ * At most maxConcurrent calls run at once and at most queue calls wait for a slot,
+ * so a slow endpoint only ever holds its own share of the server threads.
+ */
+public final class RouteBulkhead
+{
+    /** Execution slots */
+    private final Semaphore slots;
+
+    /** Calls currently waiting for a slot */
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    /** Max waiting calls */
+    private final int queue;
+
+    /** Max wait for a slot */
+    private final Duration maxWait;
+
+    /**
+     * Constructor.
+     *
+     * @param maxConcurrent Concurrent executions
+     * @param queue Waiting calls allowed
+     * @param maxWait Max wait for a slot
+     */
+    public RouteBulkhead(int maxConcurrent, int queue, Duration maxWait)
+    {
+        if (maxConcurrent < 1 || queue < 0) {
+            throw new IllegalArgumentException("Invalid bulkhead: maxConcurrent=" + maxConcurrent + ", queue=" + queue);
+        }
+        this.slots = new Semaphore(maxConcurrent, true);
+        this.queue = queue;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Builds the bulkhead declared by an annotation.
+     *
+     * @param annotation Bulkhead annotation, may be null
+     * @return Bulkhead or null if not annotated
+     */
+    public static RouteBulkhead of(Bulkhead annotation)
+    {
+        if (annotation == null) return null;
+        return new RouteBulkhead(annotation.maxConcurrent(), annotation.queue(), Duration.ofMillis(annotation.maxWaitMs()));
+    }
+
+    /**
+     * Takes an execution slot, waiting in the queue if allowed.
+     * The wait never goes beyond the current request deadline.
+     *
+     * @return true if a slot was taken; {@link #release()} must then be called once
+     */
+    public boolean tryAcquire()
+    {
+        if (slots.tryAcquire()) return true;
+        if (queue == 0) return false;
+
+        if (waiting.incrementAndGet() > queue) {
+            waiting.decrementAndGet();
+            return false;
+        }
+
+        try {
+            Duration wait = maxWait;
+            Deadline deadline = Deadline.current();
+            if (deadline != null && deadline.remaining().compareTo(wait) < 0) wait = deadline.remaining();
+
+            return !wait.isNegative() && slots.tryAcquire(wait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Releases an execution slot.
+     */
+    public void release() {
+        slots.release();
+    }
+}
@@ -0,0 +1,224 @@
+package fr.kainovaii.obsidian.http.resilience;
+
+import fr.kainovaii.obsidian.http.async.AsyncResult;
+import fr.kainovaii.obsidian.http.resilience.annotations.Coalesce;
+import fr.kainovaii.obsidian.http.stream.StreamingBody;
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Request coalescing of a single route, built from {@link Coalesce}.
+ * The first request for a key (the leader) invokes the controller; requests with the same key
+ * arriving while it runs wait for its outcome and reply with the same status, headers and body.
+ * Results that cannot be replayed (streams) make followers invoke the controller themselves.
+ */
+public final class SingleFlight
+{
+    /** Headers never replayed to followers */
+    private static final List<String> PRIVATE_HEADERS = List.of("Set-Cookie", "Set-Cookie2");
+
+    /** Query parameters in the key, or null for the whole query string */
+    private final String[] params;
+
+    /** Headers in the key */
+    private final String[] headers;
+
+    /** Max time a follower waits for the leader */
+    private final Duration maxWait;
+
+    /** In-flight invocations by key */
+    private final Map<String, CompletableFuture<Outcome>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Controller invocation.
+     */
+    @FunctionalInterface
+    public interface Invocation
+    {
+        /**
+         * Invokes the controller.
+         *
+         * @return Controller result
+         * @throws Throwable Controller error
+         */
+        Object call() throws Throwable;
+    }
+
+    /**
+     * Outcome of the leader's invocation, replayed to followers.
+     *
+     * @param status Response status
+     * @param headers Response headers set by the leader
+     * @param body Controller result
+     * @param error Controller error, or null
+     */
+    private record Outcome(int status, Map<String, String> headers, Object body, Throwable error) {}
+
+    /**
+     * Constructor.
+     *
+     * @param params Query parameters in the key, "*" for the whole query string
+     * @param headers Headers in the key
+     * @param maxWait Max time a follower waits for the leader
+     */
+    public SingleFlight(String[] params, String[] headers, Duration maxWait)
+    {
+        this.params = List.of(params).contains("*") ? null : params.clone();
+        this.headers = headers.clone();
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Builds the coalescing declared by an annotation.
+     *
+     * @param annotation Coalesce annotation, may be null
+     * @return SingleFlight or null if not annotated
+     */
+    public static SingleFlight of(Coalesce annotation)
+    {
+        if (annotation == null) return null;
+        return new SingleFlight(annotation.params(), annotation.headers(), Duration.ofMillis(annotation.maxWaitMs()));
+    }
+
+    /**
+     * Runs the invocation, or joins an identical one already in flight.
+     * Only GET and HEAD requests are coalesced.
+     *
+     * @param req HTTP request
+     * @param res HTTP response
+     * @param invocation Controller invocation
+     * @return Controller result
+     * @throws Throwable Controller error, shared with followers
+     */
+    public Object execute(Request req, Response res, Invocation invocation) throws Throwable
+    {
+        String method = req.requestMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) return invocation.call();
+
+        String key = key(req);
+        CompletableFuture<Outcome> flight = new CompletableFuture<>();
+        CompletableFuture<Outcome> leader = flights.putIfAbsent(key, flight);
+
+        if (leader == null) {
+            return lead(key, flight, res, invocation);
+        }
+
+        Outcome outcome = await(leader);
+        if (outcome == null) return invocation.call();
+        if (outcome.error() != null) throw outcome.error();
+
+        HttpServletResponse raw = res.raw();
+        raw.setStatus(outcome.status());
+        outcome.headers().forEach(raw::setHeader);
+        return outcome.body();
+    }
+
+    /**
+     * Invokes the controller as leader and publishes the outcome.
+     * An asynchronous result stays joinable until it completes.
+     */
+    private Object lead(String key, CompletableFuture<Outcome> flight, Response res, Invocation invocation) throws Throwable
+    {
+        boolean pending = false;
+        try {
+            Object result = invocation.call();
+
+            if (!replayable(result)) {
+                flight.complete(null);
+                return result;
+            }
+
+            flight.complete(new Outcome(res.raw().getStatus(), capturedHeaders(res.raw()), result, null));
+
+            if (AsyncResult.isAsync(result)) {
+                AsyncResult.toStage(result).whenComplete((value, error) -> flights.remove(key, flight));
+                pending = true;
+            }
+            return result;
+
+        } catch (Throwable e) {
+            flight.complete(new Outcome(0, Map.of(), null, e));
+            throw e;
+        } finally {
+            if (!pending) flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Waits for the leader's outcome.
+     *
+     * @return Outcome, or null if followers must invoke the controller themselves
+     */
+    private Outcome await(CompletableFuture<Outcome> leader) throws InterruptedException
+    {
+        Duration wait = maxWait;
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.remaining().compareTo(wait) < 0) wait = deadline.remaining();
+
+        try {
+            return leader.get(Math.max(0, wait.toNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Builds the coalescing key of a request.
+     *
+     * @param req HTTP request
+     * @return Key
+     */
+    private String key(Request req)
+    {
+        StringBuilder key = new StringBuilder(req.pathInfo());
+
+        key.append('?');
+        if (params == null) {
+            if (req.queryString() != null) key.append(req.queryString());
+        } else {
+            for (String param : params) {
+                key.append(param).append('=').append(req.queryParams(param)).append('&');
+            }
+        }
+
+        for (String header : headers) {
+            key.append('\n').append(header).append(':').append(req.headers(header));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Copies the headers of the leader's response, except cookies.
+     */
+    private static Map<String, String> capturedHeaders(HttpServletResponse raw)
+    {
+        Map<String, String> captured = new LinkedHashMap<>();
+        for (String name : raw.getHeaderNames()) {
+            if (PRIVATE_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                captured.put(name, raw.getHeader(name));
+            }
+        }
+        return captured;
+    }
+
+    /**
+     * Checks if a result can be handed to several responses.
+     *
+     * @param result Controller result
+     * @return false for single-use results such as streams
+     */
+    private static boolean replayable(Object result) {
+        return !StreamingBody.isStreaming(result);
+    }
+}
@@ -0,0 +1,19 @@
+package fr.kainovaii.obsidian.http.resilience.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caps the number of concurrent executions of a route.
+ * Requests beyond maxConcurrent wait in a bounded queue; when the queue is full,
+ * or the wait exceeds maxWaitMs (or the route's @Timeout), they get a 503.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Bulkhead {
+    int maxConcurrent();
+    int queue() default 0;
+    long maxWaitMs() default 1000;
+}
@@ -0,0 +1,21 @@
+package fr.kainovaii.obsidian.http.resilience.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Shares one controller invocation between concurrent identical GET requests (single-flight).
+ * Requests are identical when they have the same path, the same values for the listed
+ * query parameters ("*" for the whole query string) and the same values for the listed headers.
+ * Role checks and middleware still run for every request; only the controller call is shared,
+ * so the response must not depend on anything left out of the key (e.g. the logged user).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Coalesce {
+    String[] params() default {"*"};
+    String[] headers() default {};
+    long maxWaitMs() default 30000;
+}
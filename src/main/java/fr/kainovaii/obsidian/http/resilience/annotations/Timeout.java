@@ -0,0 +1,17 @@
+package fr.kainovaii.obsidian.http.resilience.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Time budget of a route in milliseconds.
+ * The deadline is available to handler code through {@link fr.kainovaii.obsidian.http.resilience.Deadline#current()}
+ * and bounds the JDBC statements run through DB.withConnection / DB.withTransaction.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Timeout {
+    long value();
+}
@@ -0,0 +1,138 @@
+package fr.kainovaii.obsidian.http.server;
+
+import fr.kainovaii.obsidian.core.EnvLoader;
+
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+
+/**
+ * Embedded Jetty settings.
+ * Read from the environment at startup; unset values keep Spark's and Jetty's defaults.
+ *
+ * Environment:
+ * - SERVER_HOST: bind address, default 0.0.0.0
+ * - PORT_WEB: HTTP port (required unless SERVER_TCP is false)
+ * - SERVER_TCP: listen on PORT_WEB, default true; set false to serve only over the Unix socket
+ * - SERVER_UNIX_SOCKET: path of a Unix domain socket to listen on as well, default none
+ * - SERVER_UNIX_SOCKET_PERMISSIONS: POSIX permissions of the socket file, e.g. rw-rw----, default umask
+ * - SERVER_ACCEPTORS: acceptor threads, default computed by Jetty from the core count
+ * - SERVER_SELECTORS: selector threads, default computed by Jetty from the core count
+ * - SERVER_MIN_THREADS / SERVER_MAX_THREADS: request thread pool bounds, default 8 / 200
+ * - SERVER_THREAD_IDLE_TIMEOUT: idle time before a pool thread stops, default 60s
+ * - SERVER_ACCEPT_QUEUE: pending connection backlog, default 0 (OS default)
+ * - SERVER_IDLE_TIMEOUT: connection idle timeout, default 1h (Spark's value)
+ * - SERVER_REQUEST_HEADER_SIZE: max request header size, default 8kb
+ * - SERVER_OUTPUT_BUFFER_SIZE: response buffer size before chunking, default 32kb
+ * - SERVER_TRUST_FORWARD_HEADERS: honour X-Forwarded-* headers, default true
+ * - VIRTUAL_THREADS: run request handling on virtual threads (Java 21+), default false
+ * - SERVER_H2C: also accept cleartext HTTP/2 (prior knowledge or Upgrade) on the HTTP port, default false
+ * - SERVER_H2C_MAX_STREAMS: concurrent streams per HTTP/2 connection, default 128
+ * - SERVER_H2C_STREAM_WINDOW: initial per-stream receive window, default 512kb
+ * - SERVER_H2C_SESSION_WINDOW: initial per-connection receive window, default 1mb
+ * - SERVER_STATIC_LOCATION: classpath location of static files, default /
+ *
+ * @param host Bind address
+ * @param port HTTP port
+ * @param acceptors Acceptor threads, -1 for Jetty's default
+ * @param selectors Selector threads, -1 for Jetty's default
+ * @param minThreads Minimum pool threads
+ * @param maxThreads Maximum pool threads
+ * @param threadIdleTimeout Idle time before a pool thread stops
+ * @param acceptQueueSize Accept backlog, 0 for the OS default
+ * @param idleTimeout Connection idle timeout
+ * @param requestHeaderSize Max request header size in bytes
+ * @param outputBufferSize Response buffer size in bytes
+ * @param trustForwardHeaders Whether X-Forwarded-* headers are applied to requests
+ * @param virtualThreads Whether requests run on virtual threads
+ * @param h2c Whether cleartext HTTP/2 is enabled next to HTTP/1.1
+ * @param h2cMaxConcurrentStreams Max concurrent streams per HTTP/2 connection
+ * @param h2cStreamWindow Initial stream receive window in bytes
+ * @param h2cSessionWindow Initial session receive window in bytes
+ * @param tcp Whether the TCP connector is enabled
+ * @param unixSocket Unix domain socket path, or null
+ * @param unixSocketPermissions POSIX permissions of the socket file, or null to keep the umask
+ * @param staticLocation Classpath location of static files
+ */
+public record ServerConfig(
+        String host,
+        int port,
+        int acceptors,
+        int selectors,
+        int minThreads,
+        int maxThreads,
+        Duration threadIdleTimeout,
+        int acceptQueueSize,
+        Duration idleTimeout,
+        int requestHeaderSize,
+        int outputBufferSize,
+        boolean trustForwardHeaders,
+        boolean virtualThreads,
+        boolean h2c,
+        int h2cMaxConcurrentStreams,
+        int h2cStreamWindow,
+        int h2cSessionWindow,
+        boolean tcp,
+        String unixSocket,
+        String unixSocketPermissions,
+        String staticLocation)
+{
+    /**
+     * Validates settings.
+     *
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public ServerConfig
+    {
+        if (port < 0 || port > 65535) throw new IllegalArgumentException("Invalid port: " + port);
+        if (maxThreads < minThreads || minThreads < 1) {
+            throw new IllegalArgumentException("Invalid thread pool bounds: " + minThreads + ".." + maxThreads);
+        }
+        if (requestHeaderSize <= 0 || outputBufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer sizes must be positive");
+        }
+        if (!tcp && unixSocket == null) {
+            throw new IllegalArgumentException("SERVER_TCP=false requires SERVER_UNIX_SOCKET");
+        }
+        if (unixSocketPermissions != null) {
+            PosixFilePermissions.fromString(unixSocketPermissions);
+        }
+        if (h2c && (h2cMaxConcurrentStreams <= 0 || h2cStreamWindow <= 0 || h2cSessionWindow <= 0)) {
+            throw new IllegalArgumentException("HTTP/2 stream limit and windows must be positive");
+        }
+    }
+
+    /**
+     * Reads the configuration from the environment.
+     *
+     * @param env Environment configuration
+     * @return Server configuration
+     */
+    public static ServerConfig from(EnvLoader env)
+    {
+        boolean tcp = env.getBoolean("SERVER_TCP", true);
+
+        return new ServerConfig(
+                env.get("SERVER_HOST", "0.0.0.0"),
+                tcp ? Integer.parseInt(env.getRequired("PORT_WEB").trim()) : env.getInt("PORT_WEB", 0),
+                env.getInt("SERVER_ACCEPTORS", -1),
+                env.getInt("SERVER_SELECTORS", -1),
+                env.getInt("SERVER_MIN_THREADS", 8),
+                env.getInt("SERVER_MAX_THREADS", 200),
+                env.getDuration("SERVER_THREAD_IDLE_TIMEOUT", Duration.ofSeconds(60)),
+                env.getInt("SERVER_ACCEPT_QUEUE", 0),
+                env.getDuration("SERVER_IDLE_TIMEOUT", Duration.ofHours(1)),
+                (int) env.getSize("SERVER_REQUEST_HEADER_SIZE", 8 * 1024),
+                (int) env.getSize("SERVER_OUTPUT_BUFFER_SIZE", 32 * 1024),
+                env.getBoolean("SERVER_TRUST_FORWARD_HEADERS", true),
+                env.getBoolean("VIRTUAL_THREADS", false),
+                env.getBoolean("SERVER_H2C", false),
+                env.getInt("SERVER_H2C_MAX_STREAMS", 128),
+                (int) env.getSize("SERVER_H2C_STREAM_WINDOW", 512 * 1024),
+                (int) env.getSize("SERVER_H2C_SESSION_WINDOW", 1024 * 1024),
+                tcp,
+                env.getOptional("SERVER_UNIX_SOCKET").filter(path -> !path.isBlank()).orElse(null),
+                env.getOptional("SERVER_UNIX_SOCKET_PERMISSIONS").filter(perms -> !perms.isBlank()).orElse(null),
+                env.get("SERVER_STATIC_LOCATION", "/")
+        );
+    }
+}
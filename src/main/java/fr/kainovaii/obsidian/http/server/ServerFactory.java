@@ -0,0 +1,305 @@
+package fr.kainovaii.obsidian.http.server;
+
+import fr.kainovaii.obsidian.core.EnvLoader;
+import fr.kainovaii.obsidian.core.Obsidian;
+import fr.kainovaii.obsidian.http.asset.AssetHandler;
+import fr.kainovaii.obsidian.http.async.AsyncDispatchHandler;
+import fr.kainovaii.obsidian.http.cache.PageCache;
+import fr.kainovaii.obsidian.http.cache.PageCacheHandler;
+import fr.kainovaii.obsidian.http.compression.Compression;
+import fr.kainovaii.obsidian.http.compression.CompressionThresholdHandler;
+import fr.kainovaii.obsidian.http.compression.PrecompressedStaticHandler;
+import fr.kainovaii.obsidian.http.limit.ConcurrencyLimitHandler;
+import fr.kainovaii.obsidian.http.limit.ConcurrencyLimiter;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.ForwardedRequestCustomizer;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.unixsocket.UnixSocketConnector;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.LifeCycle;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+import spark.embeddedserver.jetty.JettyServerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Jetty server factory installed in place of Spark's default one.
+ * Builds the Jetty server and its connectors (TCP and/or Unix domain socket) from a {@link ServerConfig} and wraps the handler Spark installs
+ * with the framework's request-level handlers.
+ * Spark keeps connectors already present on the server, so its own host/port connector is not used.
+ */
+public class ServerFactory implements JettyServerFactory
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(ServerFactory.class);
+
+    /** Server settings */
+    private final ServerConfig config;
+
+    /** Concurrency limiter guarding request entry, or null */
+    private final ConcurrencyLimiter limiter;
+
+    /**
+     * Constructor.
+     *
+     * @param config Server settings
+     * @param limiter Concurrency limiter, or null to admit every request
+     */
+    public ServerFactory(ServerConfig config, ConcurrencyLimiter limiter)
+    {
+        this.config = config;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Installs the factory as Spark's embedded server.
+     * Must be called before the first route is mapped.
+     *
+     * @param config Server settings
+     * @param limiter Concurrency limiter, or null to admit every request
+     */
+    public static void install(ServerConfig config, ConcurrencyLimiter limiter)
+    {
+        EmbeddedServers.add(EmbeddedServers.defaultIdentifier(), new EmbeddedJettyFactory(new ServerFactory(config, limiter)));
+    }
+
+    /**
+     * Creates the server. Spark's thread pool arguments are replaced by the configured ones.
+     */
+    @Override
+    public Server create(int maxThreads, int minThreads, int threadTimeoutMillis)
+    {
+        ThreadPool pool = null;
+        if (config.virtualThreads()) {
+            pool = VirtualThreadPool.create();
+            if (pool != null) logger.info("Request handling runs on virtual threads");
+        }
+
+        if (pool == null) {
+            pool = new QueuedThreadPool(
+                    config.maxThreads(),
+                    config.minThreads(),
+                    (int) config.threadIdleTimeout().toMillis()
+            );
+        }
+
+        return create(pool);
+    }
+
+    @Override
+    public Server create(ThreadPool threadPool)
+    {
+        Server server = new ObsidianServer(threadPool);
+        if (config.tcp()) server.addConnector(httpConnector(server));
+        if (config.unixSocket() != null) server.addConnector(unixSocketConnector(server));
+        logSettings(server);
+        return server;
+    }
+
+    /**
+     * Builds the HTTP connector: HTTP/1.1, plus cleartext HTTP/2 when enabled.
+     * With h2c, a proxy may open HTTP/2 directly (prior knowledge) or upgrade an HTTP/1.1 connection.
+     *
+     * @param server Jetty server
+     * @return Connector bound to the configured host and port
+     */
+    private ServerConnector httpConnector(Server server)
+    {
+        ServerConnector connector = new ServerConnector(server, config.acceptors(), config.selectors(), connectionFactories());
+        connector.setHost(config.host());
+        connector.setPort(config.port());
+        connector.setAcceptQueueSize(config.acceptQueueSize());
+        connector.setIdleTimeout(config.idleTimeout().toMillis());
+        return connector;
+    }
+
+    /**
+     * Builds the Unix domain socket connector for a reverse proxy on the same host.
+     * A stale socket file left by a previous run is removed before binding,
+     * and the configured permissions are applied once the socket exists.
+     *
+     * @param server Jetty server
+     * @return Connector listening on the configured socket path
+     */
+    private UnixSocketConnector unixSocketConnector(Server server)
+    {
+        Path socket = Path.of(config.unixSocket());
+
+        UnixSocketConnector connector = new UnixSocketConnector(server, config.selectors(), connectionFactories());
+        connector.setUnixSocket(socket.toString());
+        connector.setAcceptQueueSize(config.acceptQueueSize());
+        connector.setIdleTimeout(config.idleTimeout().toMillis());
+        connector.addLifeCycleListener(new AbstractLifeCycle.AbstractLifeCycleListener()
+        {
+            @Override
+            public void lifeCycleStarting(LifeCycle event)
+            {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch (IOException e) {
+                    logger.warn("Cannot remove stale socket {}: {}", socket, e.getMessage());
+                }
+            }
+
+            @Override
+            public void lifeCycleStarted(LifeCycle event)
+            {
+                if (config.unixSocketPermissions() == null) return;
+                try {
+                    Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString(config.unixSocketPermissions()));
+                } catch (IOException | UnsupportedOperationException e) {
+                    logger.warn("Cannot set permissions {} on {}: {}", config.unixSocketPermissions(), socket, e.getMessage());
+                }
+            }
+        });
+        return connector;
+    }
+
+    /**
+     * Builds the connection factories of a connector: HTTP/1.1, plus h2c when enabled.
+     *
+     * @return Connection factories, HTTP/1.1 first
+     */
+    private ConnectionFactory[] connectionFactories()
+    {
+        HttpConfiguration http = new HttpConfiguration();
+        http.setSecureScheme("https");
+        http.setRequestHeaderSize(config.requestHeaderSize());
+        http.setOutputBufferSize(config.outputBufferSize());
+        if (config.trustForwardHeaders()) {
+            http.addCustomizer(new ForwardedRequestCustomizer());
+        }
+
+        return config.h2c()
+                ? new ConnectionFactory[] { new HttpConnectionFactory(http), http2(http) }
+                : new ConnectionFactory[] { new HttpConnectionFactory(http) };
+    }
+
+    /**
+     * Builds the cleartext HTTP/2 connection factory.
+     *
+     * @param http HTTP configuration shared with HTTP/1.1
+     * @return h2c connection factory
+     */
+    private HTTP2CServerConnectionFactory http2(HttpConfiguration http)
+    {
+        HTTP2CServerConnectionFactory h2c = new HTTP2CServerConnectionFactory(http);
+        h2c.setMaxConcurrentStreams(config.h2cMaxConcurrentStreams());
+        h2c.setInitialStreamRecvWindow(config.h2cStreamWindow());
+        h2c.setInitialSessionRecvWindow(config.h2cSessionWindow());
+        return h2c;
+    }
+
+    /**
+     * Logs the effective server settings, including values Jetty derived from the core count.
+     *
+     * @param server Jetty server
+     */
+    private void logSettings(Server server)
+    {
+        String threads = server.getThreadPool() instanceof QueuedThreadPool pool
+                ? pool.getMinThreads() + ".." + pool.getMaxThreads() + " threads (idle " + pool.getIdleTimeout() + "ms)"
+                : server.getThreadPool().getClass().getSimpleName();
+
+        for (Connector connector : server.getConnectors()) {
+            if (connector instanceof ServerConnector http) {
+                logger.info("HTTP connector {}:{} {} - {} acceptors, {} selectors, accept queue {}, idle timeout {}ms",
+                        config.host(), config.port(), http.getProtocols(), http.getAcceptors(),
+                        http.getSelectorManager().getSelectorCount(), http.getAcceptQueueSize(), http.getIdleTimeout());
+            } else if (connector instanceof UnixSocketConnector unix) {
+                logger.info("Unix socket connector {} {} - permissions {}, idle timeout {}ms",
+                        unix.getUnixSocket(), unix.getProtocols(),
+                        config.unixSocketPermissions() != null ? config.unixSocketPermissions() : "umask", unix.getIdleTimeout());
+            }
+        }
+        if (config.h2c()) {
+            logger.info("HTTP/2 cleartext: {} concurrent streams, stream window {} bytes, session window {} bytes",
+                    config.h2cMaxConcurrentStreams(), config.h2cStreamWindow(), config.h2cSessionWindow());
+        }
+        logger.info("Request pool: {}, {} cores, request header {} bytes, output buffer {} bytes",
+                threads, Runtime.getRuntime().availableProcessors(),
+                config.requestHeaderSize(), config.outputBufferSize());
+    }
+
+    /**
+     * Wraps the handler installed by Spark.
+     * From the outside in: compression, fingerprinted assets, precompressed static files, page cache, async dispatch,
+     * concurrency limit.
+     *
+     * @param handler Spark handler
+     * @return Handler to install on the server
+     */
+    private Handler decorate(Handler handler)
+    {
+        if (limiter != null) {
+            ConcurrencyLimitHandler limited = new ConcurrencyLimitHandler(limiter);
+            limited.setHandler(handler);
+            handler = limited;
+        }
+
+        AsyncDispatchHandler async = new AsyncDispatchHandler();
+        async.setHandler(handler);
+        handler = async;
+
+        if (PageCache.isEnabled()) {
+            PageCacheHandler pageCache = new PageCacheHandler();
+            pageCache.setHandler(handler);
+            handler = pageCache;
+        }
+
+        EnvLoader env = Obsidian.loadConfigAndEnv();
+        PrecompressedStaticHandler precompressed = Compression.precompressed(env, config.staticLocation());
+        if (precompressed != null) {
+            precompressed.setHandler(handler);
+            handler = precompressed;
+        }
+
+        AssetHandler assets = new AssetHandler();
+        assets.setHandler(handler);
+        handler = assets;
+
+        GzipHandler gzip = Compression.fromEnv(env);
+        if (gzip != null) {
+            CompressionThresholdHandler threshold = new CompressionThresholdHandler(gzip);
+            threshold.setHandler(handler);
+            gzip.setHandler(threshold);
+            handler = gzip;
+        }
+        return handler;
+    }
+
+    /**
+     * Jetty server decorating the handler Spark sets at ignition.
+     */
+    private class ObsidianServer extends Server
+    {
+        /**
+         * Constructor.
+         *
+         * @param threadPool Thread pool, or null for Jetty's default
+         */
+        ObsidianServer(ThreadPool threadPool) {
+            super(threadPool);
+        }
+
+        @Override
+        public void setHandler(Handler handler) {
+            super.setHandler(handler != null ? decorate(handler) : null);
+        }
+    }
+}
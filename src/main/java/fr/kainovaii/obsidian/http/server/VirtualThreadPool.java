@@ -0,0 +1,112 @@
+package fr.kainovaii.obsidian.http.server;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.eclipse.jetty.util.thread.TryExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jetty thread pool running every task on a new virtual thread.
+ * Blocking JDBC calls, password hashing or long SSE handlers park the virtual thread
+ * instead of holding one of a bounded set of platform threads.
+ * A request is handled start to finish on one virtual thread, so thread-bound state
+ * (ActiveJDBC connection, template and session contexts) stays per request.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool, TryExecutor
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPool.class);
+
+    /** Virtual thread per task executor */
+    private final ExecutorService executor;
+
+    /** Tasks currently running */
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * Constructor.
+     *
+     * @param executor Executor running each task on its own virtual thread
+     */
+    private VirtualThreadPool(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a virtual thread pool.
+     * The executor is looked up reflectively so the framework still runs on Java 17.
+     *
+     * @return Pool, or null if virtual threads are not available on this JVM
+     */
+    public static VirtualThreadPool create()
+    {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            return new VirtualThreadPool(executor);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("VIRTUAL_THREADS requires Java 21 or later (running {}), using platform threads",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable task)
+    {
+        executor.execute(() -> {
+            running.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+    }
+
+    @Override
+    public boolean tryExecute(Runnable task)
+    {
+        try {
+            execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int getThreads() {
+        return running.get();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        executor.shutdown();
+        super.doStop();
+    }
+}
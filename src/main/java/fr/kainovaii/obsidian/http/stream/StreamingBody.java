@@ -0,0 +1,202 @@
+package fr.kainovaii.obsidian.http.stream;
+
+import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.Request;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.Spark;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Writes streaming controller results straight to the servlet output stream instead of building the body in memory.
+ * Supported results: {@code Stream<?>}, {@code Iterator<?>}, {@code InputStream}, {@code Path}
+ * and {@code Consumer<OutputStream>}. Elements of streams and iterators are written as they are produced
+ * (byte[] as is, anything else with toString() in UTF-8), so the response goes out chunked once the
+ * output buffer fills. Files are sent with their Content-Length, zero-copy where the container allows it.
+ */
+public final class StreamingBody
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(StreamingBody.class);
+
+    /**
+     * Private constructor, static utility class.
+     */
+    private StreamingBody() {}
+
+    /**
+     * Checks if a controller result is a streaming body.
+     *
+     * @param result Controller result
+     * @return true for Stream, Iterator, InputStream, Path and Consumer results
+     */
+    public static boolean isStreaming(Object result)
+    {
+        return result instanceof Stream<?> || result instanceof Iterator<?> || result instanceof InputStream
+                || result instanceof Path || result instanceof Consumer<?>;
+    }
+
+    /**
+     * Writes a streaming body.
+     * If the producer fails before anything was sent, the error is rethrown so the usual error page is rendered;
+     * once the response is committed the connection is aborted instead, so clients never take a truncated body
+     * for a complete one. A file that cannot be opened answers 404 (missing) or the error page, never an empty 200.
+     *
+     * @param body Streaming controller result
+     * @param request HTTP request
+     * @param response HTTP response
+     * @throws spark.HaltException 404 if a Path result does not exist
+     * @throws UncheckedIOException if a Path result cannot be opened
+     */
+    @SuppressWarnings("unchecked")
+    public static void write(Object body, HttpServletRequest request, HttpServletResponse response)
+    {
+        FileChannel file = body instanceof Path path ? open(path, response) : null;
+        try {
+            if (file != null) {
+                writeFile(file, response);
+                return;
+            }
+
+            if (response.getContentType() == null) response.setContentType("text/html; charset=utf-8");
+            OutputStream out = response.getOutputStream();
+
+            if (body instanceof Stream<?> stream) {
+                try (stream) {
+                    Iterator<?> elements = stream.iterator();
+                    while (elements.hasNext()) writeElement(elements.next(), out);
+                }
+            } else if (body instanceof Iterator<?> elements) {
+                while (elements.hasNext()) writeElement(elements.next(), out);
+            } else if (body instanceof InputStream in) {
+                try (in) { in.transferTo(out); }
+            } else {
+                ((Consumer<OutputStream>) body).accept(out);
+            }
+            out.flush();
+
+        } catch (IOException e) {
+            logger.debug("Client gone while streaming response: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            if (!response.isCommitted()) {
+                response.resetBuffer();
+                throw e;
+            }
+            logger.error("Streaming response failed after commit, aborting connection", e);
+            abort(request, e);
+        } finally {
+            if (file != null) close(file);
+        }
+    }
+
+    /**
+     * Aborts the connection of a committed response, so the client sees an incomplete transfer.
+     *
+     * @param request HTTP request
+     * @param cause Error that interrupted the body
+     */
+    public static void abort(HttpServletRequest request, Throwable cause)
+    {
+        Request base = Request.getBaseRequest(request);
+        if (base != null) base.getHttpChannel().abort(cause);
+    }
+
+    /**
+     * Writes a single stream or iterator element.
+     */
+    private static void writeElement(Object element, OutputStream out) throws IOException
+    {
+        if (element instanceof byte[] bytes) {
+            out.write(bytes);
+        } else if (element != null) {
+            out.write(element.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Opens a file result and sets its length and content type, before anything is written,
+     * so failures reach the error handling instead of being taken for a lost client.
+     *
+     * @param path File
+     * @param response HTTP response
+     * @return Open channel
+     * @throws spark.HaltException 404 if the file does not exist or is a directory
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    private static FileChannel open(Path path, HttpServletResponse response)
+    {
+        if (Files.isDirectory(path)) {
+            throw Spark.halt(404, "Not Found");
+        }
+
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            long size = channel.size();
+
+            if (response.getContentType() == null) {
+                String type = Files.probeContentType(path);
+                response.setContentType(type != null ? type : "application/octet-stream");
+            }
+            response.setContentLengthLong(size);
+            return channel;
+
+        } catch (NoSuchFileException e) {
+            throw Spark.halt(404, "Not Found");
+        } catch (IOException e) {
+            if (channel != null) close(channel);
+            throw new UncheckedIOException("Cannot read " + path, e);
+        }
+    }
+
+    /**
+     * Sends a file opened by {@link #open(Path, HttpServletResponse)}.
+     * Jetty's output takes a memory-mapped buffer and writes it to the socket without copying it to the heap;
+     * wrapped outputs get the file through FileChannel.transferTo.
+     */
+    private static void writeFile(FileChannel channel, HttpServletResponse response) throws IOException
+    {
+        long size = channel.size();
+        OutputStream out = response.getOutputStream();
+        if (out instanceof HttpOutput jetty && size <= Integer.MAX_VALUE) {
+            jetty.sendContent(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            return;
+        }
+
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = 0;
+        while (position < size) {
+            position += channel.transferTo(position, size - position, target);
+        }
+        out.flush();
+    }
+
+    /**
+     * Closes a file channel, ignoring errors.
+     */
+    private static void close(FileChannel channel)
+    {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("Cannot close file: {}", e.getMessage());
+        }
+    }
+}
@@ -6,6 +6,7 @@ import io.pebbletemplates.pebble.PebbleEngine;
 import io.pebbletemplates.pebble.template.PebbleTemplate;
 
 import java.io.StringWriter;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
@@ -86,7 +87,21 @@ public abstract class LiveComponent
      * @param pebble Pebble engine instance
      * @return Rendered HTML
      */
-    public String render(PebbleEngine pebble) {
+    public String render(PebbleEngine pebble)
+    {
+        StringWriter writer = new StringWriter(1024);
+        render(pebble, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Renders component HTML into a writer.
+     * Lets callers that own an output (a page being rendered) skip the intermediate String.
+     *
+     * @param pebble Pebble engine instance
+     * @param writer Destination writer
+     */
+    public void render(PebbleEngine pebble, Writer writer) {
         try {
             PebbleTemplate template = pebble.getTemplate(template());
             Map<String, Object> context = new HashMap<>();
@@ -111,9 +126,7 @@ public abstract class LiveComponent
                 }
             }
 
-            StringWriter writer = new StringWriter();
             template.evaluate(writer, context);
-            return writer.toString();
 
         } catch (io.pebbletemplates.pebble.error.LoaderException e) {
             throw new ComponentException.TemplateNotFoundException(template(), e);
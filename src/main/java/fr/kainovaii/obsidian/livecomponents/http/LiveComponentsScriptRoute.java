@@ -1,44 +1,58 @@
 package fr.kainovaii.obsidian.livecomponents.http;
 
+import fr.kainovaii.obsidian.http.asset.Asset;
+import fr.kainovaii.obsidian.http.asset.AssetHandler;
+import fr.kainovaii.obsidian.http.asset.AssetManifest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-
 /**
  * Serves LiveComponents JavaScript from JAR resources.
+ * The script is registered in the asset manifest: pages reference its fingerprinted URL, cached forever, while
+ * this unversioned URL is revalidated with its ETag so a new release is picked up.
  */
 public class LiveComponentsScriptRoute implements Route
 {
+    /** Unversioned URL of the script */
+    public static final String PATH = "/obsidian/livecomponents.js";
+
+    /** Classpath resource of the script */
+    private static final String RESOURCE = "META-INF/resources/obsidian/livecomponents.js";
+
+    /** Logger instance */
     private static final Logger logger = LoggerFactory.getLogger(LiveComponentsScriptRoute.class);
-    private static String cachedContent;
+
+    /** Registered script, null if missing from the JAR */
+    private static final Asset script = AssetManifest.register(PATH, RESOURCE);
 
     static {
-        try {
-            InputStream is = LiveComponentsScriptRoute.class.getClassLoader().getResourceAsStream("META-INF/resources/obsidian/livecomponents.js");
-
-            if (is != null) {
-                cachedContent = new String(is.readAllBytes(), StandardCharsets.UTF_8);
-                is.close();
-                logger.info("LiveComponents script loaded successfully");
-            } else {
-                logger.error("LiveComponents script not found in JAR");
-                cachedContent = "console.error('LiveComponents script not found');";
-            }
-        } catch (Exception e) {
-            logger.error("Failed to load LiveComponents script", e);
-            cachedContent = "console.error('Failed to load LiveComponents');";
+        if (script != null) {
+            logger.info("LiveComponents script loaded successfully");
+        } else {
+            logger.error("LiveComponents script not found in JAR");
         }
     }
 
+    /**
+     * Gets the fingerprinted URL of the script.
+     *
+     * @return Fingerprinted URL, or the unversioned URL if the script is missing
+     */
+    public static String url() {
+        return script != null ? script.url() : PATH;
+    }
+
     @Override
-    public Object handle(Request request, Response response) throws Exception {
-        response.type("application/javascript; charset=utf-8");
-        response.header("Cache-Control", "public, max-age=31536000");
-        return cachedContent;
+    public Object handle(Request request, Response response) throws Exception
+    {
+        if (script == null) {
+            response.type("application/javascript; charset=utf-8");
+            return "console.error('LiveComponents script not found');";
+        }
+        AssetHandler.serve(script, request.raw(), response.raw(), "no-cache");
+        return "";
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package fr.kainovaii.obsidian.livecomponents.pebble;
 
+import fr.kainovaii.obsidian.livecomponents.http.LiveComponentsScriptRoute;
 import io.pebbletemplates.pebble.extension.AbstractExtension;
 
 import java.util.HashMap;
@@ -7,7 +8,7 @@ import java.util.Map;
 
 /**
  * Pebble extension for LiveComponents scripts.
- * Provides livecomponents_scripts global variable.
+ * Provides livecomponents_scripts global variable, pointing at the fingerprinted script URL.
  */
 public class LiveComponentsScriptExtension extends AbstractExtension
 {
@@ -15,12 +16,9 @@ public class LiveComponentsScriptExtension extends AbstractExtension
     public Map<String, Object> getGlobalVariables()
     {
         Map<String, Object> globals = new HashMap<>();
-        String env = System.getenv("ENVIRONMENT");
-        String version = "production".equalsIgnoreCase(env) ? "1.0.0" : String.valueOf(System.currentTimeMillis());
-
-        String scriptTag = "<script src=\"/obsidian/livecomponents.js?v=" + version + "\"></script>";
+        String scriptTag = "<script src=\"" + LiveComponentsScriptRoute.url() + "\"></script>";
         globals.put("livecomponents_scripts", scriptTag);
 
         return globals;
     }
-}
\ No newline at end of file
+}
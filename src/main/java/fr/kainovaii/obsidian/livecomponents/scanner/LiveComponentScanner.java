@@ -1,11 +1,9 @@
 package fr.kainovaii.obsidian.livecomponents.scanner;
 
+import fr.kainovaii.obsidian.core.ClasspathIndex;
 import fr.kainovaii.obsidian.livecomponents.annotations.LiveComponentImpl;
 import fr.kainovaii.obsidian.livecomponents.core.ComponentManager;
 import fr.kainovaii.obsidian.livecomponents.core.LiveComponent;
-import org.reflections.Reflections;
-import org.reflections.scanners.Scanners;
-import org.reflections.util.ConfigurationBuilder;
 
 import java.util.Set;
 import java.util.logging.Logger;
@@ -30,15 +28,7 @@ public class LiveComponentScanner
         logger.info("Scanning for LiveComponents in package: " + basePackage);
 
         try {
-            Reflections reflections = new Reflections(
-                    new ConfigurationBuilder()
-                    .forPackage(basePackage)
-                    .setScanners(Scanners.TypesAnnotated, Scanners.SubTypes)
-            );
-
-            Set<Class<?>> annotatedClasses = reflections.getTypesAnnotatedWith(
-                    LiveComponentImpl.class
-            );
+            Set<Class<?>> annotatedClasses = ClasspathIndex.typesAnnotatedWith(basePackage, LiveComponentImpl.class);
 
             for (Class<?> clazz : annotatedClasses) {
                 if (LiveComponent.class.isAssignableFrom(clazz)) {
@@ -1,10 +1,10 @@
 package fr.kainovaii.obsidian.realtime.sse;
 
+import fr.kainovaii.obsidian.routing.ArgumentPlan;
 import fr.kainovaii.obsidian.routing.Route;
 import fr.kainovaii.obsidian.routing.methods.SSE;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import spark.Request;
 import spark.Response;
 
 import java.lang.reflect.Method;
@@ -71,9 +71,12 @@ public class SseLoader
 
         Route.registerNamedRoute(name, path);
 
+        method.setAccessible(true);
+        ArgumentPlan arguments = ArgumentPlan.of(method);
+
         get(path, (req, res) -> {
             configureSseResponse(res);
-            return invokeMethod(controller, method, req, res);
+            return method.invoke(controller, arguments.arguments(req, res));
         });
 
         logger.debug("Registered SSE route: {} -> {}", name, path);
@@ -92,33 +95,4 @@ public class SseLoader
         res.header("Connection", "keep-alive");
         res.header("X-Accel-Buffering", "no");
     }
-
-    /**
-     * Invokes SSE handler method with request and response parameters.
-     *
-     * @param controller Controller instance
-     * @param method Method to invoke
-     * @param req HTTP request
-     * @param res HTTP response
-     * @return Method return value
-     * @throws Exception if invocation fails
-     */
-    private static Object invokeMethod(Object controller, Method method, Request req, Response res)
-            throws Exception
-    {
-        method.setAccessible(true);
-
-        Class<?>[] paramTypes = method.getParameterTypes();
-        Object[] args = new Object[paramTypes.length];
-
-        for (int i = 0; i < paramTypes.length; i++) {
-            if (paramTypes[i] == Request.class) {
-                args[i] = req;
-            } else if (paramTypes[i] == Response.class) {
-                args[i] = res;
-            }
-        }
-
-        return method.invoke(controller, args);
-    }
 }
\ No newline at end of file
@@ -1,8 +1,8 @@
 package fr.kainovaii.obsidian.realtime.websocket;
 
+import fr.kainovaii.obsidian.core.ClasspathIndex;
 import fr.kainovaii.obsidian.core.Obsidian;
 import fr.kainovaii.obsidian.routing.methods.WebSocket;
-import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,8 +27,7 @@ public class WebSocketLoader
     {
         logger.info("Scanning for WebSocket handlers in package:" + Obsidian.getBasePackage());
 
-        Reflections reflections = new Reflections(Obsidian.getBasePackage());
-        Set<Class<?>> webSocketClasses = reflections.getTypesAnnotatedWith(WebSocket.class);
+        Set<Class<?>> webSocketClasses = ClasspathIndex.typesAnnotatedWith(WebSocket.class);
 
         logger.info("Found {} WebSocket handler(s)", webSocketClasses.size());
 
@@ -0,0 +1,133 @@
+package fr.kainovaii.obsidian.routing;
+
+import fr.kainovaii.obsidian.di.Container;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.Request;
+import spark.Response;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Parameter resolution plan of a handler method, computed once at registration.
+ * Container dependencies are resolved up front into an argument template,
+ * so a call only copies the template and fills the Request/Response slots.
+ */
+public final class ArgumentPlan
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(ArgumentPlan.class);
+
+    /** Prebuilt arguments: dependencies filled, request/response slots null */
+    private volatile Object[] template;
+
+    /** Indexes of Request parameters */
+    private final int[] requestSlots;
+
+    /** Indexes of Response parameters */
+    private final int[] responseSlots;
+
+    /** Dependency parameters not resolvable at registration, resolved on first call */
+    private volatile int[] pendingSlots;
+
+    /** Declared parameter types */
+    private final Class<?>[] types;
+
+    /** Lock for deferred resolution, which may run component constructors on a request thread */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Private constructor, see {@link #of(Method)}.
+     */
+    private ArgumentPlan(Object[] template, int[] requestSlots, int[] responseSlots, int[] pendingSlots, Class<?>[] types)
+    {
+        this.template = template;
+        this.requestSlots = requestSlots;
+        this.responseSlots = responseSlots;
+        this.pendingSlots = pendingSlots;
+        this.types = types;
+    }
+
+    /**
+     * Builds the plan of a method.
+     * Dependencies that the container cannot build yet are retried on first call.
+     *
+     * @param method Handler method
+     * @return Resolution plan
+     */
+    public static ArgumentPlan of(Method method)
+    {
+        Class<?>[] types = method.getParameterTypes();
+        Object[] template = new Object[types.length];
+        List<Integer> requests = new ArrayList<>();
+        List<Integer> responses = new ArrayList<>();
+        List<Integer> pending = new ArrayList<>();
+
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == Request.class) {
+                requests.add(i);
+            } else if (types[i] == Response.class) {
+                responses.add(i);
+            } else {
+                try {
+                    template[i] = Container.resolve(types[i]);
+                } catch (RuntimeException e) {
+                    logger.debug("Deferring resolution of {} for {}: {}", types[i].getSimpleName(), method.getName(), e.getMessage());
+                    pending.add(i);
+                }
+            }
+        }
+
+        return new ArgumentPlan(template, toArray(requests), toArray(responses), toArray(pending), types);
+    }
+
+    /**
+     * Builds the arguments of a call.
+     *
+     * @param req HTTP request
+     * @param res HTTP response
+     * @return Arguments in declaration order
+     * @throws RuntimeException if a deferred dependency still cannot be resolved
+     */
+    public Object[] arguments(Request req, Response res)
+    {
+        if (pendingSlots.length > 0) {
+            resolvePending();
+        }
+
+        Object[] args = template.clone();
+        for (int slot : requestSlots) args[slot] = req;
+        for (int slot : responseSlots) args[slot] = res;
+        return args;
+    }
+
+    /**
+     * Resolves dependencies deferred at registration and publishes the completed template.
+     */
+    private void resolvePending()
+    {
+        lock.lock();
+        try {
+            if (pendingSlots.length == 0) return;
+
+            Object[] completed = template.clone();
+            for (int slot : pendingSlots) {
+                completed[slot] = Container.resolve(types[slot]);
+            }
+            template = completed;
+            pendingSlots = new int[0];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Converts a list of indexes to an array.
+     */
+    private static int[] toArray(List<Integer> indexes) {
+        return indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -1,5 +1,7 @@
 package fr.kainovaii.obsidian.routing;
 
+import fr.kainovaii.obsidian.core.Registry;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -10,7 +12,7 @@ import java.util.Map;
 public class Route
 {
     /** Map of route names to paths */
-    private static final Map<String, String> namedRoutes = new HashMap<>();
+    private static final Registry<String, String> namedRoutes = Registry.create("namedRoutes");
 
     /**
      * Registers a named route.
@@ -50,6 +52,6 @@ public class Route
      * @return Copy of routes map
      */
     public static Map<String, String> getAllRoutes() {
-        return new HashMap<>(namedRoutes);
+        return new HashMap<>(namedRoutes.snapshot());
     }
 }
\ No newline at end of file
@@ -0,0 +1,391 @@
+package fr.kainovaii.obsidian.routing;
+
+import fr.kainovaii.obsidian.error.ErrorHandler;
+import fr.kainovaii.obsidian.http.async.AsyncResult;
+import fr.kainovaii.obsidian.http.cache.CachedResponse;
+import fr.kainovaii.obsidian.http.cache.RouteCache;
+import fr.kainovaii.obsidian.http.cache.annotations.Cached;
+import fr.kainovaii.obsidian.http.middleware.Middleware;
+import fr.kainovaii.obsidian.http.middleware.MiddlewareManager;
+import fr.kainovaii.obsidian.http.middleware.annotations.After;
+import fr.kainovaii.obsidian.http.middleware.annotations.Before;
+import fr.kainovaii.obsidian.http.resilience.BulkheadFullException;
+import fr.kainovaii.obsidian.http.resilience.Deadline;
+import fr.kainovaii.obsidian.http.resilience.DeadlineExceededException;
+import fr.kainovaii.obsidian.http.resilience.RouteBulkhead;
+import fr.kainovaii.obsidian.http.resilience.SingleFlight;
+import fr.kainovaii.obsidian.http.resilience.annotations.Bulkhead;
+import fr.kainovaii.obsidian.http.resilience.annotations.Coalesce;
+import fr.kainovaii.obsidian.http.resilience.annotations.Timeout;
+import fr.kainovaii.obsidian.http.stream.StreamingBody;
+import fr.kainovaii.obsidian.security.csrf.CsrfProtection;
+import fr.kainovaii.obsidian.security.csrf.annotations.CsrfProtect;
+import fr.kainovaii.obsidian.security.role.HasRole;
+import fr.kainovaii.obsidian.security.role.RoleChecker;
+import fr.kainovaii.obsidian.template.StreamingRender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.HaltException;
+import spark.Request;
+import spark.Response;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precompiled Spark route for a single controller method.
+ * Everything derived from annotations and reflection (middleware chains, CSRF flag,
+ * required role, bulkhead, timeout, coalescing, response cache, parameter plan and call site) is resolved once at registration,
+ * so handling a request is a straight-line call.
+ */
+public final class RouteInvoker implements spark.Route
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(RouteInvoker.class);
+
+    /** Empty middleware chain shared by routes without @Before/@After */
+    private static final Middleware[] NO_MIDDLEWARE = new Middleware[0];
+
+    /** Human readable route identifier used in logs */
+    private final String description;
+
+    /** Role required by @HasRole, or null */
+    private final String requiredRole;
+
+    /** Middleware executed before the controller */
+    private final Middleware[] beforeChain;
+
+    /** Middleware executed after the controller */
+    private final Middleware[] afterChain;
+
+    /** Whether @CsrfProtect is present */
+    private final boolean csrfProtected;
+
+    /** Argument template and request/response slots */
+    private final ArgumentPlan arguments;
+
+    /** Controller call site with signature (Object[])Object */
+    private final MethodHandle callSite;
+
+    /** Concurrency compartment from @Bulkhead, or null */
+    private final RouteBulkhead bulkhead;
+
+    /** Time budget from @Timeout, or null */
+    private final Duration timeout;
+
+    /** Request coalescing from @Coalesce, or null */
+    private final SingleFlight coalescing;
+
+    /** Response cache from @Cached, or null */
+    private final RouteCache cache;
+
+    /** Whether templates may be streamed to the response: no @After, @Cached or @Coalesce needs the body */
+    private final boolean streamingRender;
+
+    /**
+     * Private constructor, see {@link #compile(Object, Method)}.
+     */
+    private RouteInvoker(String description, String requiredRole, Middleware[] beforeChain, Middleware[] afterChain,
+                         boolean csrfProtected, ArgumentPlan arguments, MethodHandle callSite,
+                         RouteBulkhead bulkhead, Duration timeout, SingleFlight coalescing, RouteCache cache)
+    {
+        this.description = description;
+        this.requiredRole = requiredRole;
+        this.beforeChain = beforeChain;
+        this.afterChain = afterChain;
+        this.csrfProtected = csrfProtected;
+        this.arguments = arguments;
+        this.callSite = callSite;
+        this.bulkhead = bulkhead;
+        this.timeout = timeout;
+        this.coalescing = coalescing;
+        this.cache = cache;
+        this.streamingRender = afterChain.length == 0 && cache == null && coalescing == null;
+    }
+
+    /**
+     * Compiles a controller method into a route invoker.
+     *
+     * @param controller Controller instance
+     * @param method Controller method
+     * @return Compiled route
+     * @throws IllegalStateException if the method cannot be made accessible
+     */
+    public static RouteInvoker compile(Object controller, Method method)
+    {
+        String description = controller.getClass().getSimpleName() + "." + method.getName();
+
+        HasRole hasRole = method.getAnnotation(HasRole.class);
+        Before before = method.getAnnotation(Before.class);
+        After after = method.getAnnotation(After.class);
+        Timeout timeout = method.getAnnotation(Timeout.class);
+
+        return new RouteInvoker(
+                description,
+                hasRole != null ? hasRole.value() : null,
+                before != null ? MiddlewareManager.resolveChain(before.value()) : NO_MIDDLEWARE,
+                after != null ? MiddlewareManager.resolveChain(after.value()) : NO_MIDDLEWARE,
+                method.isAnnotationPresent(CsrfProtect.class),
+                ArgumentPlan.of(method),
+                buildCallSite(controller, method),
+                RouteBulkhead.of(method.getAnnotation(Bulkhead.class)),
+                timeout != null ? Duration.ofMillis(timeout.value()) : null,
+                SingleFlight.of(method.getAnnotation(Coalesce.class)),
+                RouteCache.of(description, method.getAnnotation(Cached.class))
+        );
+    }
+
+    /**
+     * Builds a spreading method handle bound to the controller instance.
+     *
+     * @param controller Controller instance
+     * @param method Controller method
+     * @return Method handle of type (Object[])Object
+     */
+    private static MethodHandle buildCallSite(Object controller, Method method)
+    {
+        try {
+            method.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                handle = handle.bindTo(controller);
+            }
+            return handle
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalStateException("Cannot compile route handler for "
+                    + controller.getClass().getName() + "." + method.getName(), e);
+        }
+    }
+
+    /**
+     * Handles a request: role check, before middleware, CSRF, controller, after middleware.
+     * Asynchronous results (CompletionStage, DeferredResult) complete the response later, see {@link AsyncResult}.
+     * Streaming results (Stream, Iterator, InputStream, Path, Consumer) are written as produced, see {@link StreamingBody}.
+     * With @Timeout the deadline is bound to the thread for the whole call; with @Bulkhead the controller
+     * only runs once a slot is free. Both answer 503 when the request cannot be served in time.
+     * With @Coalesce, identical concurrent GETs share one controller call.
+     * With @Cached, GETs are answered from the response cache without calling the controller.
+     *
+     * @param req HTTP request
+     * @param res HTTP response
+     * @return Controller result or error page
+     */
+    @Override
+    public Object handle(Request req, Response res)
+    {
+        Deadline deadline = timeout != null ? Deadline.after(timeout) : null;
+        Deadline previous = deadline != null ? Deadline.bind(deadline) : null;
+
+        try {
+            if (requiredRole != null) {
+                RoleChecker.checkRole(req, res, requiredRole);
+            }
+
+            MiddlewareManager.execute(beforeChain, req, res);
+
+            if (csrfProtected) {
+                validateCsrf(req, res);
+            }
+
+            String cacheKey = cache != null ? cache.key(req) : null;
+            if (cacheKey != null) {
+                CachedResponse cached = cache.lookup(cacheKey);
+                if (cached != null) return fromCache(cacheKey, cached, req, res);
+            }
+
+            if (streamingRender) {
+                StreamingRender.allow(req);
+            }
+
+            Object result = call(req, res);
+
+            if (AsyncResult.isAsync(result)) {
+                CompletionStage<?> stage = AsyncResult.toStage(result);
+                Duration limit = AsyncResult.timeoutOf(result);
+                if (deadline != null) {
+                    Duration remaining = deadline.remaining().isNegative() ? Duration.ZERO : deadline.remaining();
+                    stage = stage.toCompletableFuture().copy()
+                            .orTimeout(remaining.toMillis(), TimeUnit.MILLISECONDS);
+                    if (limit == null || remaining.compareTo(limit) < 0) limit = remaining;
+                }
+                return AsyncResult.start(stage, limit, req, res, afterChain);
+            }
+
+            MiddlewareManager.execute(afterChain, req, res);
+
+            if (StreamingBody.isStreaming(result)) {
+                StreamingBody.write(result, req.raw(), res.raw());
+                return "";
+            }
+
+            return cacheKey != null ? cache.store(cacheKey, result, req, res) : result;
+
+        } catch (HaltException e) {
+            throw e;
+        } catch (Throwable e) {
+            Throwable rejection = rejection(e);
+            if (rejection instanceof BulkheadFullException) {
+                logger.warn("Bulkhead full for {}", description);
+                return unavailable(res, "Service Unavailable");
+            }
+            if (rejection instanceof DeadlineExceededException) {
+                Deadline expired = deadline != null ? deadline : Deadline.current();
+                if (expired != null) {
+                    logger.warn("{} exceeded its {}ms deadline: {}", description, expired.budget().toMillis(), rejection.getMessage());
+                } else {
+                    logger.warn("{} exceeded a deadline: {}", description, rejection.getMessage());
+                }
+                return unavailable(res, "Request timed out");
+            }
+            return ErrorHandler.handle(e, req, res);
+        } finally {
+            if (deadline != null) Deadline.bind(previous);
+        }
+    }
+
+    /**
+     * Answers from the response cache.
+     * A stale entry is sent and committed first, then the request that claimed the revalidation
+     * calls the controller to render the fresh copy into a detached response; the client does not wait for it.
+     *
+     * @param key Cache key
+     * @param cached Cached response
+     * @param req HTTP request
+     * @param res HTTP response
+     * @return Response body
+     * @throws Throwable After middleware error
+     */
+    private Object fromCache(String key, CachedResponse cached, Request req, Response res) throws Throwable
+    {
+        Object body = cache.replay(cached, req, res);
+        MiddlewareManager.execute(afterChain, req, res);
+
+        if (!cached.isStale() || !cache.claimRefresh(key)) {
+            return body;
+        }
+
+        Response detached = cache.revalidation(cached, res);
+        Object fresh = null;
+        try {
+            cache.send(body, res);
+            fresh = call(req, detached);
+        } catch (Throwable e) {
+            logger.warn("Revalidation of {} failed: {}", description, e.getMessage());
+        } finally {
+            cache.refresh(key, fresh, detached);
+        }
+        return "";
+    }
+
+    /**
+     * Calls the controller, through the coalescing if any.
+     *
+     * @param req HTTP request
+     * @param res HTTP response
+     * @return Controller result
+     * @throws Throwable Controller error
+     */
+    private Object call(Request req, Response res) throws Throwable
+    {
+        return coalescing != null
+                ? coalescing.execute(req, res, () -> invoke(req, res))
+                : invoke(req, res);
+    }
+
+    /**
+     * Calls the controller, inside the bulkhead if any.
+     * For asynchronous results the bulkhead slot is held until the result completes; the result itself is
+     * returned unchanged, so a DeferredResult keeps its own timeout.
+     *
+     * @param req HTTP request
+     * @param res HTTP response
+     * @return Controller result
+     * @throws BulkheadFullException if no slot frees up in time
+     * @throws Throwable Controller error
+     */
+    private Object invoke(Request req, Response res) throws Throwable
+    {
+        if (bulkhead == null) {
+            return callSite.invokeExact(arguments.arguments(req, res));
+        }
+
+        if (!bulkhead.tryAcquire()) {
+            throw new BulkheadFullException("No free slot for " + description);
+        }
+
+        boolean async = false;
+        try {
+            Object result = callSite.invokeExact(arguments.arguments(req, res));
+            if (AsyncResult.isAsync(result)) {
+                async = true;
+                AsyncResult.toStage(result).whenComplete((value, error) -> bulkhead.release());
+            }
+            return result;
+        } finally {
+            if (!async) bulkhead.release();
+        }
+    }
+
+    /**
+     * Finds the overload rejection behind an error: a bulkhead or deadline exception, possibly wrapped.
+     * Other errors, even when thrown after the deadline passed, keep their own error page.
+     *
+     * @param error Error thrown while handling the request
+     * @return BulkheadFullException or DeadlineExceededException, or null
+     */
+    private static Throwable rejection(Throwable error)
+    {
+        Throwable cause = error;
+        for (int depth = 0; cause != null && depth < 10; depth++) {
+            if (cause instanceof BulkheadFullException || cause instanceof DeadlineExceededException) {
+                return cause;
+            }
+            cause = cause.getCause() != cause ? cause.getCause() : null;
+        }
+        return null;
+    }
+
+    /**
+     * Answers 503 for a request that could not be served in time.
+     *
+     * @param res HTTP response
+     * @param message Response body
+     * @return Response body
+     */
+    private static Object unavailable(Response res, String message)
+    {
+        res.status(503);
+        res.header("Retry-After", "1");
+        res.type("text/plain; charset=utf-8");
+        return message;
+    }
+
+    /**
+     * Validates the CSRF token of the request.
+     *
+     * @param req HTTP request
+     * @param res HTTP response
+     * @throws SecurityException if CSRF validation fails
+     */
+    private void validateCsrf(Request req, Response res)
+    {
+        if (!CsrfProtection.validate(req)) {
+            logger.warn("CSRF validation failed for {}", description);
+
+            if (req.session(false) != null) {
+                req.session().attribute("flash_error", "Invalid security token. Please try again.");
+            }
+
+            res.status(403);
+            throw new SecurityException("CSRF token validation failed");
+        }
+    }
+}
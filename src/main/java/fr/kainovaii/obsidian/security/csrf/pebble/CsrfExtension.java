@@ -1,6 +1,7 @@
 package fr.kainovaii.obsidian.security.csrf.pebble;
 
 import fr.kainovaii.obsidian.security.csrf.CsrfProtection;
+import fr.kainovaii.obsidian.template.TemplateContext;
 import io.pebbletemplates.pebble.extension.AbstractExtension;
 import io.pebbletemplates.pebble.extension.Function;
 import io.pebbletemplates.pebble.template.EvaluationContext;
@@ -49,7 +50,7 @@ public class CsrfExtension extends AbstractExtension
         @Override
         public Object execute(Map<String, Object> args, PebbleTemplate self, EvaluationContext context, int lineNumber)
         {
-            Request req = (Request) context.getVariable("request");
+            Request req = (Request) TemplateContext.variable(context, "request");
             if (req == null) return "";
 
             String token = CsrfProtection.getToken(req);
@@ -85,7 +86,7 @@ public class CsrfExtension extends AbstractExtension
         @Override
         public Object execute(Map<String, Object> args, PebbleTemplate self, EvaluationContext context, int lineNumber)
         {
-            Request req = (Request) context.getVariable("request");
+            Request req = (Request) TemplateContext.variable(context, "request");
             if (req == null) return "";
 
             return CsrfProtection.getToken(req);
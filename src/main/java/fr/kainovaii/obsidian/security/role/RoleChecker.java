@@ -1,13 +1,11 @@
 package fr.kainovaii.obsidian.security.role;
 
 import fr.kainovaii.obsidian.core.Obsidian;
+import fr.kainovaii.obsidian.core.Registry;
 import fr.kainovaii.obsidian.http.controller.BaseController;
 import spark.Request;
 import spark.Response;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import static spark.Spark.halt;
 
 /**
@@ -17,7 +15,7 @@ import static spark.Spark.halt;
 public class RoleChecker extends BaseController
 {
     /** Map of route patterns to required roles */
-    private static final Map<String, String> pathToRole = new HashMap<>();
+    private static final Registry<String, String> pathToRole = Registry.create("pathToRole");
 
     /**
      * Registers a route with its required role.
@@ -43,6 +41,19 @@ public class RoleChecker extends BaseController
 
         if (requiredRole == null) { return; }
 
+        checkRole(req, res, requiredRole);
+    }
+
+    /**
+     * Enforces a required role for the current request.
+     * Redirects to login if anonymous, or back to the site with a flash if the role does not match.
+     *
+     * @param req HTTP request
+     * @param res HTTP response
+     * @param requiredRole Required role name ("DEFAULT" only requires login)
+     */
+    public static void checkRole(Request req, Response res, String requiredRole)
+    {
         requireLogin(req, res);
 
         if (!requiredRole.equals("DEFAULT"))
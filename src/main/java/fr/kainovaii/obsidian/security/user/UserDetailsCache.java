@@ -0,0 +1,113 @@
+package fr.kainovaii.obsidian.security.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Optional cross-request cache of {@link UserDetails} keyed by user id.
+ * Disabled by default: every lookup goes to the {@link UserDetailsService}.
+ * Once enabled, entries live for the configured TTL and must be invalidated
+ * when a user changes (role update, disabled account...).
+ */
+public final class UserDetailsCache
+{
+    /** Active cache, null when disabled */
+    private static volatile Cache<Object, UserDetails> cache;
+
+    /**
+     * Private constructor, static utility class.
+     */
+    private UserDetailsCache() {}
+
+    /**
+     * Enables the cache with a default size of 10 000 users.
+     *
+     * @param ttl Time to live of an entry after it is loaded
+     */
+    public static void enable(Duration ttl) {
+        enable(ttl, 10_000);
+    }
+
+    /**
+     * Enables the cache.
+     * Replaces any previously enabled cache, dropping its entries.
+     *
+     * @param ttl Time to live of an entry after it is loaded
+     * @param maximumSize Maximum number of cached users
+     */
+    public static void enable(Duration ttl, long maximumSize)
+    {
+        cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * Disables the cache and drops all entries.
+     */
+    public static void disable() {
+        cache = null;
+    }
+
+    /**
+     * Checks if the cache is enabled.
+     *
+     * @return true if enabled
+     */
+    public static boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Gets a user, loading it on miss.
+     * Missing users (loader returning null) are not cached.
+     *
+     * @param id User id
+     * @param loader Loader called on miss or when the cache is disabled
+     * @return User details or null if not found
+     */
+    public static UserDetails get(Object id, Function<Object, UserDetails> loader)
+    {
+        Cache<Object, UserDetails> current = cache;
+        if (current == null) return loader.apply(id);
+        return current.get(id, loader);
+    }
+
+    /**
+     * Stores a freshly loaded user, e.g. after login.
+     *
+     * @param user User details
+     */
+    public static void put(UserDetails user)
+    {
+        Cache<Object, UserDetails> current = cache;
+        if (current != null && user != null && user.getId() != null) {
+            current.put(user.getId(), user);
+        }
+    }
+
+    /**
+     * Evicts a user so the next lookup reloads it.
+     * Call after changing a user's role, password or enabled state.
+     *
+     * @param id User id
+     */
+    public static void invalidate(Object id)
+    {
+        Cache<Object, UserDetails> current = cache;
+        if (current != null && id != null) current.invalidate(id);
+    }
+
+    /**
+     * Evicts all users.
+     */
+    public static void invalidateAll()
+    {
+        Cache<Object, UserDetails> current = cache;
+        if (current != null) current.invalidateAll();
+    }
+}
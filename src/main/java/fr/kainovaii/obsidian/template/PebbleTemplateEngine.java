@@ -1,5 +1,6 @@
 package fr.kainovaii.obsidian.template;
 
+import fr.kainovaii.obsidian.http.asset.pebble.AssetExtension;
 import fr.kainovaii.obsidian.livecomponents.pebble.LiveComponentsScriptExtension;
 import fr.kainovaii.obsidian.routing.pebble.RouteExtension;
 import fr.kainovaii.obsidian.security.csrf.pebble.CsrfExtension;
@@ -13,7 +14,9 @@ import spark.TemplateEngine;
 import io.pebbletemplates.pebble.PebbleEngine;
 import io.pebbletemplates.pebble.loader.ClasspathLoader;
 
+import java.io.IOException;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.util.Map;
 
 /**
@@ -35,6 +38,7 @@ public class PebbleTemplateEngine extends TemplateEngine
         engine = new PebbleEngine.Builder()
             .loader(loader)
             .extension(new RouteExtension())
+            .extension(new AssetExtension())
             .extension(new StripTagsFilter())
             .extension(new CsrfExtension())
             .extension(new FlashExtension())
@@ -83,4 +87,16 @@ public class PebbleTemplateEngine extends TemplateEngine
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Renders template with model data into a writer.
+     *
+     * @param templateName Template name/path
+     * @param model Template variables
+     * @param writer Destination writer
+     * @throws IOException if the writer fails
+     */
+    public void render(String templateName, Map<String, Object> model, Writer writer) throws IOException {
+        engine.getTemplate(templateName).evaluate(writer, model);
+    }
+}
@@ -0,0 +1,95 @@
+package fr.kainovaii.obsidian.template;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 writer over the response output stream used by {@link StreamingRender}.
+ * Characters are buffered until the flush threshold is reached, then encoded and sent to the client,
+ * so the first part of a page (its head) leaves early. An explicit flush (Pebble's {@code flush} tag) is honoured
+ * as soon as more output follows; the flush Pebble issues at the end of a template is not, so small pages
+ * keep their Content-Length.
+ */
+final class ResponseWriter extends Writer
+{
+    /** Response output stream */
+    private final OutputStream out;
+
+    /** Buffered characters sent to the client once they reach this count */
+    private final int threshold;
+
+    /** Pending characters */
+    private final StringBuilder buffer;
+
+    /** Whether a flush was requested since the last write */
+    private boolean flushRequested;
+
+    /**
+     * Constructor.
+     *
+     * @param out Response output stream
+     * @param threshold Flush threshold in characters
+     */
+    ResponseWriter(OutputStream out, int threshold)
+    {
+        this.out = out;
+        this.threshold = threshold;
+        this.buffer = new StringBuilder(threshold + 256);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException
+    {
+        buffer.append(chars, offset, length);
+        if (flushRequested || buffer.length() >= threshold) drain(true);
+    }
+
+    @Override
+    public void write(String string, int offset, int length) throws IOException
+    {
+        buffer.append(string, offset, offset + length);
+        if (flushRequested || buffer.length() >= threshold) drain(true);
+    }
+
+    /**
+     * Moves the pending characters to the response buffer; they are sent with the next write.
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        drain(false);
+        flushRequested = true;
+    }
+
+    /**
+     * Writes the remaining characters to the response buffer without committing it,
+     * so small pages keep their Content-Length.
+     */
+    @Override
+    public void close() throws IOException {
+        drain(false);
+    }
+
+    /**
+     * Encodes the pending characters into the output stream.
+     * A trailing high surrogate stays buffered until its pair arrives.
+     *
+     * @param commit Whether to flush the output stream to the client
+     */
+    private void drain(boolean commit) throws IOException
+    {
+        int end = buffer.length();
+        if (end > 0 && Character.isHighSurrogate(buffer.charAt(end - 1)) && commit) end--;
+
+        if (end > 0) {
+            out.write(buffer.substring(0, end).getBytes(StandardCharsets.UTF_8));
+            buffer.delete(0, end);
+        }
+        if (commit) {
+            out.flush();
+            flushRequested = false;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package fr.kainovaii.obsidian.template;
+
+import fr.kainovaii.obsidian.core.Obsidian;
+import fr.kainovaii.obsidian.http.stream.StreamingBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.Request;
+import spark.Response;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+
+/**
+ * Renders templates straight into the response output stream instead of building the page as a String.
+ * Output is sent every TEMPLATE_FLUSH_THRESHOLD characters (default 8kb, 0 disables streaming), so the
+ * browser starts on the head while the body is still evaluated.
+ *
+ * Streaming is only used where the route lets the body go out before the controller returns:
+ * {@link fr.kainovaii.obsidian.routing.RouteInvoker} allows it for routes without @After, @Cached or @Coalesce,
+ * which need the rendered body as a value.
+ */
+public final class StreamingRender
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(StreamingRender.class);
+
+    /** Request attribute set on requests whose route accepts streamed renders */
+    private static final String ALLOWED_ATTRIBUTE = "obsidian.streamingRender";
+
+    /** Flush threshold in characters, 0 when disabled */
+    private static volatile Integer threshold;
+
+    /**
+     * Private constructor, static utility class.
+     */
+    private StreamingRender() {}
+
+    /**
+     * Marks a request as accepting streamed renders.
+     *
+     * @param req HTTP request
+     */
+    public static void allow(Request req) {
+        req.raw().setAttribute(ALLOWED_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    /**
+     * Renders a template into the response if the request accepts it.
+     * An error before the first flush leaves the response untouched and is rethrown, so the caller can still
+     * render an error page; after the first flush the connection is aborted.
+     *
+     * @param templateName Template name/path
+     * @param model Template variables
+     * @param req HTTP request
+     * @param res HTTP response
+     * @return true if the page was written to the response, false if the caller must render it as a String
+     * @throws Exception Template error raised before anything was sent
+     */
+    public static boolean render(String templateName, Map<String, Object> model, Request req, Response res) throws Exception
+    {
+        int flushThreshold = threshold();
+        HttpServletResponse raw = res.raw();
+        if (flushThreshold <= 0 || raw.isCommitted() || req.raw().getAttribute(ALLOWED_ATTRIBUTE) == null) {
+            return false;
+        }
+
+        if (raw.getContentType() == null) raw.setContentType("text/html; charset=utf-8");
+        ResponseWriter writer = new ResponseWriter(raw.getOutputStream(), flushThreshold);
+
+        try {
+            TemplateManager.get().render(templateName, model, writer);
+            writer.close();
+        } catch (Exception e) {
+            if (!raw.isCommitted()) {
+                raw.resetBuffer();
+                throw e;
+            }
+            logger.error("Template {} failed after the response was committed, aborting connection", templateName, e);
+            StreamingBody.abort(req.raw(), e);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the flush threshold.
+     *
+     * @return Threshold in characters
+     */
+    private static int threshold()
+    {
+        Integer current = threshold;
+        if (current == null) {
+            current = (int) Obsidian.loadConfigAndEnv().getSize("TEMPLATE_FLUSH_THRESHOLD", 8 * 1024);
+            threshold = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,276 @@
+package fr.kainovaii.obsidian.template;
+
+import io.pebbletemplates.pebble.template.EvaluationContext;
+import spark.Request;
+import spark.Response;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Request-scoped template variables.
+ * Holds the current request and response, and computes provider-backed variables
+ * (logged user, flashes...) only the first time a template reads them.
+ * Bound to the handling thread between {@link #open(Request, Response)} and {@link #close()}.
+ */
+public final class TemplateContext
+{
+    /** Request attribute holding the context, for code running off the request thread */
+    public static final String ATTRIBUTE = "obsidian.template.context";
+
+    /** Context bound to the current thread */
+    private static final ThreadLocal<TemplateContext> current = new ThreadLocal<>();
+
+    /** Lazy variable providers, replaced atomically on registration */
+    private static volatile Map<String, Function<TemplateContext, Object>> providers = Map.of();
+
+    /** HTTP request */
+    private final Request request;
+
+    /** HTTP response */
+    private final Response response;
+
+    /** Provider values already computed for this request */
+    private final Map<String, Object> resolved = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param request HTTP request
+     * @param response HTTP response
+     */
+    private TemplateContext(Request request, Response response)
+    {
+        this.request = request;
+        this.response = response;
+    }
+
+    /**
+     * Registers a lazily computed request variable.
+     * The provider runs at most once per request, when the variable is first read.
+     *
+     * @param name Variable name
+     * @param provider Function computing the value from the context
+     */
+    public static synchronized void provide(String name, Function<TemplateContext, Object> provider)
+    {
+        Map<String, Function<TemplateContext, Object>> copy = new HashMap<>(providers);
+        copy.put(name, provider);
+        providers = Map.copyOf(copy);
+    }
+
+    /**
+     * Opens a context for the request and binds it to the current thread.
+     *
+     * @param req HTTP request
+     * @param res HTTP response
+     * @return The new context
+     */
+    public static TemplateContext open(Request req, Response res)
+    {
+        TemplateContext context = new TemplateContext(req, res);
+        current.set(context);
+        req.attribute(ATTRIBUTE, context);
+        return context;
+    }
+
+    /**
+     * Gets the context bound to the current thread.
+     *
+     * @return Current context or null outside of a request
+     */
+    public static TemplateContext current() {
+        return current.get();
+    }
+
+    /**
+     * Binds an existing context to the current thread.
+     * Used to continue a request on another thread (asynchronous results).
+     *
+     * @param context Context to bind, or null to unbind
+     */
+    public static void bind(TemplateContext context)
+    {
+        if (context == null) {
+            current.remove();
+        } else {
+            current.set(context);
+        }
+    }
+
+    /**
+     * Unbinds the context from the current thread.
+     * Should be called after request processing to prevent memory leaks.
+     */
+    public static void close() {
+        current.remove();
+    }
+
+    /**
+     * Builds the variables visible to a template: the model first,
+     * then request variables of the current context, then app-wide globals.
+     * Nothing is copied; values are looked up on access.
+     *
+     * @param model Template model (may be null)
+     * @return Variable map
+     */
+    public static Map<String, Object> model(Map<String, Object> model)
+    {
+        return new TemplateModel(model, current.get(), TemplateManager.getGlobals());
+    }
+
+    /**
+     * Reads a variable from a Pebble evaluation context, falling back to the current request context.
+     * Lets extensions work in templates rendered without the request model (e.g. LiveComponents).
+     *
+     * @param evaluationContext Pebble evaluation context
+     * @param name Variable name
+     * @return Variable value or null if undefined
+     */
+    public static Object variable(EvaluationContext evaluationContext, String name)
+    {
+        Object value = evaluationContext.getVariable(name);
+        if (value != null) return value;
+
+        TemplateContext context = current.get();
+        return context != null ? context.get(name) : null;
+    }
+
+    /**
+     * Gets the HTTP request.
+     *
+     * @return HTTP request
+     */
+    public Request request() {
+        return request;
+    }
+
+    /**
+     * Gets the HTTP response.
+     *
+     * @return HTTP response
+     */
+    public Response response() {
+        return response;
+    }
+
+    /**
+     * Checks if a request variable is defined.
+     *
+     * @param name Variable name
+     * @return true if defined
+     */
+    public boolean has(String name) {
+        return name.equals("request") || name.equals("response") || providers.containsKey(name);
+    }
+
+    /**
+     * Gets a request variable, computing it on first access.
+     *
+     * @param name Variable name
+     * @return Variable value or null if undefined
+     */
+    public Object get(String name)
+    {
+        if (name.equals("request")) return request;
+        if (name.equals("response")) return response;
+
+        if (resolved.containsKey(name)) return resolved.get(name);
+
+        Function<TemplateContext, Object> provider = providers.get(name);
+        if (provider == null) return null;
+
+        Object value = provider.apply(this);
+        resolved.put(name, value);
+        return value;
+    }
+
+    /**
+     * Computes all request variables.
+     *
+     * @return Map of every request variable
+     */
+    private Map<String, Object> resolveAll()
+    {
+        Map<String, Object> all = new HashMap<>();
+        all.put("request", request);
+        all.put("response", response);
+        for (String name : providers.keySet()) {
+            all.put(name, get(name));
+        }
+        return all;
+    }
+
+    /**
+     * Layered view over model, request variables and globals.
+     * Writes from the template ({% set %}) go to a local overlay and never reach the sources.
+     */
+    private static final class TemplateModel extends AbstractMap<String, Object>
+    {
+        /** Template model */
+        private final Map<String, Object> model;
+
+        /** Request context (may be null) */
+        private final TemplateContext context;
+
+        /** App-wide globals snapshot */
+        private final Map<String, Object> globals;
+
+        /** Variables assigned by the template */
+        private final Map<String, Object> overrides = new HashMap<>();
+
+        /** Lazily materialized entries, only built when Pebble needs to copy the scope */
+        private Map<String, Object> materialized;
+
+        TemplateModel(Map<String, Object> model, TemplateContext context, Map<String, Object> globals)
+        {
+            this.model = model != null ? model : Collections.emptyMap();
+            this.context = context;
+            this.globals = globals;
+        }
+
+        @Override
+        public Object get(Object key)
+        {
+            if (overrides.containsKey(key)) return overrides.get(key);
+            if (model.containsKey(key)) return model.get(key);
+            if (context != null && key instanceof String name && context.has(name)) return context.get(name);
+            return globals.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return overrides.containsKey(key)
+                    || model.containsKey(key)
+                    || (context != null && key instanceof String name && context.has(name))
+                    || globals.containsKey(key);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet()
+        {
+            if (materialized == null) {
+                Map<String, Object> all = new HashMap<>(globals);
+                if (context != null) all.putAll(context.resolveAll());
+                all.putAll(model);
+                all.putAll(overrides);
+                materialized = Collections.unmodifiableMap(all);
+            }
+            return materialized.entrySet();
+        }
+
+        @Override
+        public Object put(String key, Object value)
+        {
+            Object previous = get(key);
+            overrides.put(key, value);
+            materialized = null;
+            return previous;
+        }
+    }
+}
@@ -1,19 +1,21 @@
 package fr.kainovaii.obsidian.template;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Template manager for global template access and variables.
- * Provides singleton template engine and global variable storage.
+ * Provides singleton template engine and app-wide global variables.
+ * Request-specific variables belong to {@link TemplateContext}.
  */
 public class TemplateManager
 {
     /** Singleton template engine instance */
     private static final PebbleTemplateEngine engine = new PebbleTemplateEngine();
 
-    /** Global template variables */
-    private static final Map<String, Object> globals = new HashMap<>();
+    /** Global template variables, immutable snapshot replaced on each write */
+    private static volatile Map<String, Object> globals = Collections.emptyMap();
 
     /**
      * Gets template engine instance.
@@ -27,7 +29,7 @@ public class TemplateManager
     /**
      * Gets global template variables.
      *
-     * @return Map of global variables
+     * @return Immutable snapshot of global variables
      */
     public static Map<String, Object> getGlobals() {
         return globals;
@@ -39,7 +41,10 @@ public class TemplateManager
      * @param key Variable name
      * @param value Variable value
      */
-    public static void setGlobal(String key, Object value) {
-        globals.put(key, value);
+    public static synchronized void setGlobal(String key, Object value)
+    {
+        Map<String, Object> copy = new HashMap<>(globals);
+        copy.put(key, value);
+        globals = Collections.unmodifiableMap(copy);
     }
 }
\ No newline at end of file
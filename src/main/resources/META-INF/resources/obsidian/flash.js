@@ -0,0 +1,70 @@
+/**
+ * Obsidian flash notifications - Toast-style display of flash messages
+ *
+ * Reads the messages rendered by flash() in hidden [data-flash-*] elements
+ * and shows them as notifications. The display duration comes from the
+ * data-flash-duration attribute of the script tag.
+ *
+ * Exposes window.showNotification(message, type).
+ */
+(function() {
+    'use strict';
+
+    var script = document.currentScript;
+    var FLASH_DURATION = script && script.dataset.flashDuration ? parseInt(script.dataset.flashDuration, 10) : 3000;
+
+    var ICONS = {
+        success: '<svg fill="currentColor" viewBox="0 0 20 20"><path fill-rule="evenodd" d="M10 18a8 8 0 100-16 8 8 0 000 16zm3.707-9.293a1 1 0 00-1.414-1.414L9 10.586 7.707 9.293a1 1 0 00-1.414 1.414l2 2a1 1 0 001.414 0l4-4z" clip-rule="evenodd"/></svg>',
+        error: '<svg fill="currentColor" viewBox="0 0 20 20"><path fill-rule="evenodd" d="M10 18a8 8 0 100-16 8 8 0 000 16zM8.707 7.293a1 1 0 00-1.414 1.414L8.586 10l-1.293 1.293a1 1 0 101.414 1.414L10 11.414l1.293 1.293a1 1 0 001.414-1.414L11.414 10l1.293-1.293a1 1 0 00-1.414-1.414L10 8.586 8.707 7.293z" clip-rule="evenodd"/></svg>',
+        info: '<svg fill="currentColor" viewBox="0 0 20 20"><path fill-rule="evenodd" d="M18 10a8 8 0 11-16 0 8 8 0 0116 0zm-7-4a1 1 0 11-2 0 1 1 0 012 0zM9 9a1 1 0 000 2v3a1 1 0 001 1h1a1 1 0 100-2v-3a1 1 0 00-1-1H9z" clip-rule="evenodd"/></svg>',
+        warning: '<svg fill="currentColor" viewBox="0 0 20 20"><path fill-rule="evenodd" d="M8.257 3.099c.765-1.36 2.722-1.36 3.486 0l5.58 9.92c.75 1.334-.213 2.98-1.742 2.98H4.42c-1.53 0-2.493-1.646-1.743-2.98l5.58-9.92zM11 13a1 1 0 11-2 0 1 1 0 012 0zm-1-8a1 1 0 00-1 1v3a1 1 0 002 0V6a1 1 0 00-1-1z" clip-rule="evenodd"/></svg>'
+    };
+
+    /**
+     * Shows a notification.
+     *
+     * @param {string} message Message (HTML)
+     * @param {string} type success, error, info or warning
+     */
+    function showNotification(message, type) {
+        const notification = document.createElement('div');
+
+        notification.className = 'flash-notification flash-' + type + ' flash-animate-in';
+        notification.innerHTML = (ICONS[type] || '') + '<span>' + message + '</span>';
+
+        document.body.appendChild(notification);
+
+        setTimeout(function() {
+            notification.classList.remove('flash-animate-in');
+            notification.classList.add('flash-animate-out');
+            setTimeout(function() {
+                if (notification.parentNode) {
+                    document.body.removeChild(notification);
+                }
+            }, 300);
+        }, FLASH_DURATION);
+    }
+
+    /**
+     * Shows the flash messages rendered in the page.
+     */
+    function initFlashes() {
+        ['success', 'error', 'info', 'warning'].forEach(function(type) {
+            const el = document.querySelector('[data-flash-' + type + ']');
+            if (el) {
+                const message = el.dataset['flash' + type.charAt(0).toUpperCase() + type.slice(1)];
+                if (message && message.trim()) {
+                    showNotification(message, type);
+                }
+            }
+        });
+    }
+
+    if (document.readyState === 'loading') {
+        document.addEventListener('DOMContentLoaded', initFlashes);
+    } else {
+        initFlashes();
+    }
+
+    window.showNotification = showNotification;
+})();
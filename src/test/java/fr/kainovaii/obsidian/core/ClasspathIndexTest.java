@@ -0,0 +1,73 @@
+package fr.kainovaii.obsidian.core;
+
+import fr.kainovaii.obsidian.database.Migration;
+import fr.kainovaii.obsidian.di.annotations.Service;
+import fr.kainovaii.obsidian.processor.SourceCompiler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classpath queries over a root with a compile-time index and a root without one.
+ */
+class ClasspathIndexTest
+{
+    /** Context class loader before the test */
+    private final ClassLoader previous = Thread.currentThread().getContextClassLoader();
+
+    @AfterEach
+    void restore()
+    {
+        Thread.currentThread().setContextClassLoader(previous);
+        ClasspathIndex.clear();
+    }
+
+    @Test
+    void mergesIndexedAndScannedRoots(@TempDir Path directory) throws Exception
+    {
+        Path indexed = Files.createDirectory(directory.resolve("indexed"));
+        SourceCompiler.compile(Map.of(
+                "shop.core.Orders", "package shop.core; @fr.kainovaii.obsidian.di.annotations.Service public class Orders {}",
+                "shop.core.CreateOrders", "package shop.core; public abstract class CreateOrders extends fr.kainovaii.obsidian.database.Migration {}"
+        ), indexed, true);
+
+        Path plain = Files.createDirectory(directory.resolve("plain"));
+        SourceCompiler.compile(Map.of(
+                "shop.extra.Invoices", "package shop.extra; @fr.kainovaii.obsidian.di.annotations.Service public class Invoices {}",
+                "shop.extra.BulkOrders", "package shop.extra; public class BulkOrders extends shop.core.Orders {}",
+                "shop.extra.CreateInvoices", "package shop.extra; public abstract class CreateInvoices extends shop.core.CreateOrders {}"
+        ), plain, false, indexed);
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { indexed.toUri().toURL(), plain.toUri().toURL() },
+                getClass().getClassLoader())) {
+            Thread.currentThread().setContextClassLoader(loader);
+            ClasspathIndex.clear();
+
+            assertEquals(Set.of("shop.core.Orders", "shop.extra.Invoices", "shop.extra.BulkOrders"),
+                    names(ClasspathIndex.typesAnnotatedWith("shop", Service.class)));
+            assertEquals(Set.of("shop.core.CreateOrders", "shop.extra.CreateInvoices"),
+                    names(ClasspathIndex.subTypesOf("shop", Migration.class)));
+
+            assertTrue(ClasspathIndex.isIndexed(indexed.toUri().toURL(), Service.class));
+            assertFalse(ClasspathIndex.isIndexed(plain.toUri().toURL(), Service.class));
+            assertEquals(Set.of("shop.core.Orders"), names(ClasspathIndex.indexedTypesAnnotatedWith(Service.class)));
+        }
+    }
+
+    /**
+     * Gets the names of classes.
+     */
+    private static Set<String> names(Set<? extends Class<?>> types) {
+        return types.stream().map(Class::getName).collect(Collectors.toSet());
+    }
+}
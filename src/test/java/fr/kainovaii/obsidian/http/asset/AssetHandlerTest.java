@@ -0,0 +1,63 @@
+package fr.kainovaii.obsidian.http.asset;
+
+import fr.kainovaii.obsidian.http.cache.CachedResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Range header parsing and validators of fingerprinted assets.
+ */
+class AssetHandlerTest
+{
+    @Test
+    void parsesSingleRanges()
+    {
+        assertArrayEquals(new long[] { 0, 9 }, AssetHandler.parseRange("bytes=0-9", 100));
+        assertArrayEquals(new long[] { 50, 99 }, AssetHandler.parseRange("bytes=50-", 100));
+        assertArrayEquals(new long[] { 90, 99 }, AssetHandler.parseRange("bytes=-10", 100));
+        assertArrayEquals(new long[] { 5, 5 }, AssetHandler.parseRange(" bytes = 5 - 5 ", 100));
+    }
+
+    @Test
+    void clampsRangesToTheContent()
+    {
+        assertArrayEquals(new long[] { 90, 99 }, AssetHandler.parseRange("bytes=90-500", 100));
+        assertArrayEquals(new long[] { 0, 99 }, AssetHandler.parseRange("bytes=-500", 100));
+    }
+
+    @Test
+    void ignoresInvalidAndMultipleRanges()
+    {
+        assertEquals(0, AssetHandler.parseRange("bytes=5-3", 100).length);
+        assertEquals(0, AssetHandler.parseRange("bytes=0-1,5-9", 100).length);
+        assertEquals(0, AssetHandler.parseRange("bytes=-", 100).length);
+        assertEquals(0, AssetHandler.parseRange("bytes=a-b", 100).length);
+        assertEquals(0, AssetHandler.parseRange("bytes=+1-5", 100).length);
+        assertEquals(0, AssetHandler.parseRange("items=0-9", 100).length);
+        assertEquals(0, AssetHandler.parseRange("bytes=99999999999999999999-", 100).length);
+    }
+
+    @Test
+    void rejectsUnsatisfiableRanges()
+    {
+        assertNull(AssetHandler.parseRange("bytes=100-", 100));
+        assertNull(AssetHandler.parseRange("bytes=200-300", 100));
+        assertNull(AssetHandler.parseRange("bytes=-0", 100));
+        assertNull(AssetHandler.parseRange("bytes=0-", 0));
+        assertNull(AssetHandler.parseRange("bytes=-5", 0));
+    }
+
+    @Test
+    void tagsTheGzipVariantSeparately()
+    {
+        String etag = "\"abc\"";
+        String gzip = CachedResponse.gzipEtag(etag);
+        assertEquals("\"abc--gz\"", gzip);
+
+        assertTrue(CachedResponse.matches(etag, etag));
+        assertTrue(CachedResponse.matches(gzip, etag));
+        assertTrue(CachedResponse.matches("W/" + gzip, etag));
+        assertFalse(CachedResponse.matches("\"abd--gz\"", etag));
+    }
+}
@@ -0,0 +1,26 @@
+package fr.kainovaii.obsidian.http.asset;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fingerprinted asset URLs.
+ */
+class AssetManifestTest
+{
+    @Test
+    void insertsTheFingerprintBeforeTheExtension()
+    {
+        assertEquals("/assets/app.3f2a9c1e0b.css", AssetManifest.fingerprinted("/assets/app.css", "3f2a9c1e0b"));
+        assertEquals("/assets/app.min.3f2a9c1e0b.js", AssetManifest.fingerprinted("/assets/app.min.js", "3f2a9c1e0b"));
+    }
+
+    @Test
+    void appendsTheFingerprintWithoutExtension()
+    {
+        assertEquals("/assets/LICENSE.3f2a9c1e0b", AssetManifest.fingerprinted("/assets/LICENSE", "3f2a9c1e0b"));
+        assertEquals("/assets/.htaccess.3f2a9c1e0b", AssetManifest.fingerprinted("/assets/.htaccess", "3f2a9c1e0b"));
+        assertEquals("/a.b/file.3f2a9c1e0b", AssetManifest.fingerprinted("/a.b/file", "3f2a9c1e0b"));
+    }
+}
@@ -0,0 +1,162 @@
+package fr.kainovaii.obsidian.http.cache;
+
+import fr.kainovaii.obsidian.core.EnvLoader;
+import fr.kainovaii.obsidian.http.compression.Compression;
+import fr.kainovaii.obsidian.http.compression.CompressionThresholdHandler;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import spark.RequestResponseFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Page cache behind response compression, as installed by the server factory.
+ */
+class PageCacheCompressionTest
+{
+    /** Page body, larger than the compression minimum size */
+    private static final String PAGE = "<p>cached page</p>\n".repeat(200);
+
+    /** Number of times the application rendered the page */
+    private static final AtomicInteger renders = new AtomicInteger();
+
+    /** Shared environment before the test, restored afterwards */
+    private static EnvLoader previousEnv;
+
+    private static Server server;
+    private static URI uri;
+    private static final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeAll
+    static void start(@TempDir Path directory) throws Exception
+    {
+        Files.writeString(directory.resolve(".env"), "PAGE_CACHE=true\n");
+        EnvLoader env = new EnvLoader(directory);
+        env.load();
+        previousEnv = EnvLoader.useShared(env);
+
+        AbstractHandler application = new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+                    throws IOException
+            {
+                baseRequest.setHandled(true);
+                renders.incrementAndGet();
+                response.setContentType("text/html; charset=utf-8");
+                PageCache.cache(RequestResponseFactory.create(request), RequestResponseFactory.create(response),
+                        Duration.ofSeconds(60), "page:" + target);
+
+                // Like Spark: write, flush, then close the body
+                OutputStream out = response.getOutputStream();
+                out.write(PAGE.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                out.close();
+            }
+        };
+
+        PageCacheHandler pageCache = new PageCacheHandler();
+        pageCache.setHandler(application);
+        GzipHandler gzip = Compression.fromEnv(env);
+        CompressionThresholdHandler threshold = new CompressionThresholdHandler(gzip);
+        threshold.setHandler(pageCache);
+        gzip.setHandler(threshold);
+
+        server = new Server(0);
+        server.setHandler(gzip);
+        server.start();
+        uri = URI.create("http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort() + "/");
+    }
+
+    @AfterAll
+    static void stop() throws Exception
+    {
+        server.stop();
+        PageCache.purgeAll();
+        EnvLoader.useShared(previousEnv);
+    }
+
+    @Test
+    void storesCompressedPagesAndServesEveryEncoding() throws Exception
+    {
+        HttpResponse<byte[]> first = get("gzip");
+        assertEquals(200, first.statusCode());
+        assertEquals("gzip", first.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals(PAGE, gunzip(first.body()));
+        int rendered = renders.get();
+
+        HttpResponse<byte[]> hit = get("gzip");
+        assertEquals(rendered, renders.get(), "second request must be answered from the page cache");
+        assertTrue(hit.headers().firstValue("Age").isPresent());
+        assertEquals("gzip", hit.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals(PAGE, gunzip(hit.body()));
+
+        HttpResponse<byte[]> identity = get("identity");
+        assertEquals(rendered, renders.get(), "the stored page serves clients without gzip too");
+        assertTrue(identity.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(PAGE, new String(identity.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void purgesTaggedPagesWithoutSendingTags() throws Exception
+    {
+        HttpResponse<byte[]> first = get("/tagged", "identity");
+        assertTrue(first.headers().firstValue("Surrogate-Key").isEmpty());
+        int rendered = renders.get();
+
+        get("/tagged", "identity");
+        assertEquals(rendered, renders.get(), "second request must be answered from the page cache");
+
+        PageCache.purgeTag("page:/tagged");
+        get("/tagged", "identity");
+        assertEquals(rendered + 1, renders.get(), "purged page must be rendered again");
+    }
+
+    /**
+     * Requests the page with an Accept-Encoding header.
+     */
+    private static HttpResponse<byte[]> get(String acceptEncoding) throws Exception {
+        return get("/page", acceptEncoding);
+    }
+
+    /**
+     * Requests a path with an Accept-Encoding header.
+     */
+    private static HttpResponse<byte[]> get(String path, String acceptEncoding) throws Exception
+    {
+        HttpRequest request = HttpRequest.newBuilder(uri.resolve(path)).header("Accept-Encoding", acceptEncoding).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Decompresses a gzip body.
+     */
+    private static String gunzip(byte[] body) throws IOException
+    {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package fr.kainovaii.obsidian.http.server;
+
+import fr.kainovaii.obsidian.core.EnvLoader;
+import fr.kainovaii.obsidian.http.asset.AssetManifest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.Spark;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares HTTP/1.1 and cleartext HTTP/2 (h2c) on pages made of many LiveComponent and asset requests.
+ * Not a unit test: run it with scripts/benchmark-h2c.sh, once per protocol.
+ *
+ * Each simulated browser loads the page HTML, then every component action and asset of the page at once, and
+ * the page counts as loaded when the last of them is done. Over HTTP/1.1 a browser keeps at most 6 connections
+ * to a host, so at most 6 of its requests are in flight; over h2c they are multiplexed on one connection.
+ * Component actions are POSTs to /obsidian/components answered by a stand-in route that waits, like a render;
+ * assets are fingerprinted text files served by the asset handler.
+ *
+ * Arguments: http1|h2c [browsers, default 20] [pages per browser, default 10] [components per page, default 30]
+ * [assets per page, default 20] [component latency in ms, default 20].
+ */
+public final class H2cBenchmark
+{
+    /** Logger instance */
+    private static final Logger logger = LoggerFactory.getLogger(H2cBenchmark.class);
+
+    /** Connections a browser opens to one host over HTTP/1.1 */
+    private static final int BROWSER_CONNECTIONS = 6;
+
+    /** Size of each asset */
+    private static final int ASSET_SIZE = 16 * 1024;
+
+    /**
+     * Private constructor, run through {@link #main}.
+     */
+    private H2cBenchmark() {}
+
+    public static void main(String[] args) throws Exception
+    {
+        boolean h2c = args.length > 0 && "h2c".equals(args[0]);
+        int browsers = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int pages = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int components = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        int assets = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+        Duration latency = Duration.ofMillis(args.length > 5 ? Long.parseLong(args[5]) : 20);
+
+        int port = freePort();
+        Path directory = Files.createTempDirectory("obsidian-benchmark");
+        Files.writeString(directory.resolve(".env"), "PORT_WEB=" + port + "\nSERVER_H2C=true\n");
+        EnvLoader env = new EnvLoader(directory);
+        env.load();
+        EnvLoader.useShared(env);
+
+        List<String> assetUrls = new ArrayList<>();
+        for (int i = 0; i < assets; i++) {
+            byte[] content = ("/* asset " + i + " */\n" + ".c" + i + " { color: red; }\n".repeat(ASSET_SIZE / 24))
+                    .getBytes(StandardCharsets.UTF_8);
+            assetUrls.add(AssetManifest.register("/assets/benchmark-" + i + ".css", content).url());
+        }
+
+        ServerFactory.install(ServerConfig.from(env), null);
+        Spark.get("/page", (req, res) -> "<html><body>" + "<div data-component></div>".repeat(components) + "</body></html>");
+        Spark.post("/obsidian/components", (req, res) -> {
+            Thread.sleep(latency.toMillis());
+            res.type("application/json");
+            return "{\"success\":true,\"html\":\"" + "<span>rendered</span>".repeat(100) + "\"}";
+        });
+        Spark.awaitInitialization();
+
+        try {
+            run(URI.create("http://localhost:" + port), browsers, pages, components, assetUrls, h2c);
+        } finally {
+            Spark.stop();
+            Spark.awaitStop();
+        }
+    }
+
+    /**
+     * Loads the pages from concurrent browsers and prints page load times.
+     */
+    private static void run(URI base, int browsers, int pages, int components, List<String> assetUrls, boolean h2c)
+            throws Exception
+    {
+        HttpClient.Version version = h2c ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1;
+        long[] latencies = new long[browsers * pages];
+        AtomicInteger recorded = new AtomicInteger();
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger downgraded = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(browsers);
+        ExecutorService workers = Executors.newFixedThreadPool(browsers);
+
+        for (int b = 0; b < browsers; b++) {
+            workers.execute(() -> {
+                HttpClient client = HttpClient.newBuilder()
+                        .version(version)
+                        .connectTimeout(Duration.ofSeconds(30))
+                        .build();
+                Browser browser = new Browser(client, base, version, h2c ? Integer.MAX_VALUE : BROWSER_CONNECTIONS,
+                        requests, errors, downgraded);
+                try {
+                    // h2c starts with an Upgrade on a first GET; later requests share the upgraded connection
+                    browser.get("/page").join();
+                    start.await();
+                    for (int p = 0; p < pages; p++) {
+                        long begin = System.nanoTime();
+                        browser.load(components, assetUrls);
+                        latencies[recorded.getAndIncrement()] = System.nanoTime() - begin;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        workers.shutdown();
+
+        long[] sorted = Arrays.copyOf(latencies, recorded.get());
+        Arrays.sort(sorted);
+        logger.info("{}, {} browsers x {} pages of {} components and {} assets: {} requests in {}s, {} pages/s, "
+                        + "page load p50 {}ms, p99 {}ms, max {}ms, {} errors, {} responses on another protocol",
+                h2c ? "h2c" : "HTTP/1.1", browsers, pages, components, assetUrls.size(), requests.get(),
+                String.format("%.2f", seconds), String.format("%.1f", sorted.length / seconds),
+                millis(sorted, 0.50), millis(sorted, 0.99), millis(sorted, 1.0), errors.get(), downgraded.get());
+    }
+
+    /**
+     * Gets a percentile of sorted latencies in milliseconds.
+     */
+    private static long millis(long[] sorted, double percentile)
+    {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000;
+    }
+
+    /**
+     * Finds a free TCP port.
+     */
+    private static int freePort() throws Exception
+    {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Simulated browser: one HTTP client, with a cap on requests in flight.
+     */
+    private static final class Browser
+    {
+        /** Client holding the browser's connections */
+        private final HttpClient client;
+
+        /** Server URL */
+        private final URI base;
+
+        /** Protocol expected on responses */
+        private final HttpClient.Version version;
+
+        /** Requests allowed in flight */
+        private final Semaphore connections;
+
+        /** Requests sent, errors and responses on another protocol, shared by all browsers */
+        private final AtomicInteger requests;
+        private final AtomicInteger errors;
+        private final AtomicInteger downgraded;
+
+        /**
+         * Constructor.
+         */
+        Browser(HttpClient client, URI base, HttpClient.Version version, int connections,
+                AtomicInteger requests, AtomicInteger errors, AtomicInteger downgraded)
+        {
+            this.client = client;
+            this.base = base;
+            this.version = version;
+            this.connections = new Semaphore(connections);
+            this.requests = requests;
+            this.errors = errors;
+            this.downgraded = downgraded;
+        }
+
+        /**
+         * Loads a page: the HTML first, then its component actions and assets together.
+         */
+        void load(int components, List<String> assetUrls) throws InterruptedException
+        {
+            get("/page").join();
+
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (int i = 0; i < components; i++) {
+                String body = "{\"componentId\":\"c" + i + "\",\"action\":\"refresh\",\"state\":{}}";
+                pending.add(send(HttpRequest.newBuilder(base.resolve("/obsidian/components"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))));
+            }
+            for (String url : assetUrls) {
+                pending.add(get(url));
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        }
+
+        /**
+         * Sends a GET request.
+         */
+        CompletableFuture<Void> get(String path) throws InterruptedException {
+            return send(HttpRequest.newBuilder(base.resolve(path)).GET());
+        }
+
+        /**
+         * Sends a request once a connection is free, counting errors and responses on another protocol.
+         */
+        private CompletableFuture<Void> send(HttpRequest.Builder request) throws InterruptedException
+        {
+            connections.acquire();
+            requests.incrementAndGet();
+            return client.sendAsync(request.timeout(Duration.ofSeconds(120)).build(), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        connections.release();
+                        if (error != null || response.statusCode() != 200) errors.incrementAndGet();
+                        if (response != null && response.version() != version) downgraded.incrementAndGet();
+                        return null;
+                    });
+        }
+    }
+}
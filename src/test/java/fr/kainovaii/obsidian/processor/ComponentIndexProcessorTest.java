@@ -0,0 +1,41 @@
+package fr.kainovaii.obsidian.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Index written by the component index processor.
+ */
+class ComponentIndexProcessorTest
+{
+    @Test
+    void indexesAnnotatedTypesTheirSubtypesAndMigrations(@TempDir Path output) throws Exception
+    {
+        SourceCompiler.compile(Map.of(
+                "app.Users", "package app; @fr.kainovaii.obsidian.di.annotations.Service public class Users {}",
+                "app.AdminUsers", "package app; public class AdminUsers extends Users {}",
+                "app.Store", "package app; @fr.kainovaii.obsidian.di.annotations.Repository public interface Store {}",
+                "app.SqlStore", "package app; public class SqlStore implements Store { public static class Cached extends SqlStore {} }",
+                "app.Plain", "package app; public class Plain {}",
+                "app.CreateUsers", "package app; public abstract class CreateUsers extends fr.kainovaii.obsidian.database.Migration {}"
+        ), output, true);
+
+        List<String> index = Files.readAllLines(output.resolve(ComponentIndexProcessor.INDEX_RESOURCE));
+
+        assertTrue(index.contains("@fr.kainovaii.obsidian.di.annotations.Service app.Users"));
+        assertTrue(index.contains("@fr.kainovaii.obsidian.di.annotations.Service app.AdminUsers"));
+        assertTrue(index.contains("@fr.kainovaii.obsidian.di.annotations.Repository app.Store"));
+        assertTrue(index.contains("@fr.kainovaii.obsidian.di.annotations.Repository app.SqlStore"));
+        assertTrue(index.contains("@fr.kainovaii.obsidian.di.annotations.Repository app.SqlStore$Cached"));
+        assertTrue(index.contains("+fr.kainovaii.obsidian.database.Migration app.CreateUsers"));
+        assertTrue(index.contains("@fr.kainovaii.obsidian.http.controller.annotations.Controller"), "every key is declared");
+        assertTrue(index.stream().noneMatch(line -> line.endsWith(" app.Plain")));
+    }
+}
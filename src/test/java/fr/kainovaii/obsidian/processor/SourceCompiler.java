@@ -0,0 +1,74 @@
+package fr.kainovaii.obsidian.processor;
+
+import javax.annotation.processing.Processor;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles test sources in memory, with or without the component index processor.
+ */
+public final class SourceCompiler
+{
+    /**
+     * Private constructor, static utility class.
+     */
+    private SourceCompiler() {}
+
+    /**
+     * Compiles sources into a directory.
+     *
+     * @param sources Source code by binary class name
+     * @param output Class output directory
+     * @param index Whether to run the component index processor
+     * @param classpath Extra classpath entries
+     */
+    public static void compile(Map<String, String> sources, Path output, boolean index, Path... classpath)
+    {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<JavaFileObject> units = new ArrayList<>();
+        sources.forEach((name, code) -> units.add(new Source(name, code)));
+
+        StringBuilder path = new StringBuilder(System.getProperty("java.class.path"));
+        for (Path entry : classpath) path.append(File.pathSeparator).append(entry);
+
+        List<String> options = new ArrayList<>(List.of("-d", output.toString(), "-classpath", path.toString()));
+        if (!index) options.add("-proc:none");
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null, units);
+        if (index) task.setProcessors(List.<Processor>of(new ComponentIndexProcessor()));
+
+        if (!task.call()) {
+            throw new IllegalStateException("Compilation failed: " + diagnostics.getDiagnostics());
+        }
+    }
+
+    /**
+     * In-memory source file.
+     */
+    private static final class Source extends SimpleJavaFileObject
+    {
+        /** Source code */
+        private final String code;
+
+        Source(String name, String code)
+        {
+            super(URI.create("string:///" + name.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+}